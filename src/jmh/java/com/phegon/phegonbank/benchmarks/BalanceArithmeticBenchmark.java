@@ -0,0 +1,73 @@
+package com.phegon.phegonbank.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BigDecimal work TransactionServiceImpl does per request: the sufficient-funds check and
+ * the debit/credit of a transfer, and the per-account netting the batch and engine paths do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BalanceArithmeticBenchmark {
+
+    @Param({"100"})
+    public int batchSize;
+
+    private BigDecimal sourceBalance;
+    private BigDecimal destBalance;
+    private BigDecimal amount;
+    private String[] batchAccounts;
+    private BigDecimal[] batchAmounts;
+
+    @Setup
+    public void setUp() {
+        sourceBalance = new BigDecimal("1520.75");
+        destBalance = new BigDecimal("310.10");
+        amount = new BigDecimal("25.00");
+
+        Random random = new Random(42); // fixed seed so every run sees the same batch
+        batchAccounts = new String[batchSize];
+        batchAmounts = new BigDecimal[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            batchAccounts[i] = "66" + (10000000 + random.nextInt(20));
+            batchAmounts[i] = BigDecimal.valueOf(random.nextInt(100_000), 2);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal[] transfer() {
+        if (sourceBalance.compareTo(amount) < 0) {
+            throw new IllegalStateException("Insufficient balance");
+        }
+        return new BigDecimal[]{sourceBalance.subtract(amount), destBalance.add(amount)};
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> netBatch() {
+        Map<String, BigDecimal> deltas = new TreeMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            deltas.merge(batchAccounts[i], batchAmounts[i], BigDecimal::add);
+        }
+        return deltas;
+    }
+}
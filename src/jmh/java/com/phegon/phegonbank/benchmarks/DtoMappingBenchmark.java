@@ -0,0 +1,148 @@
+package com.phegon.phegonbank.benchmarks;
+
+import com.phegon.phegonbank.account.dtos.AccountDTO;
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.mappers.AccountMapper;
+import com.phegon.phegonbank.account.mappers.AccountMapperImpl;
+import com.phegon.phegonbank.auth_users.dtos.UserDTO;
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.auth_users.mappers.UserMapper;
+import com.phegon.phegonbank.auth_users.mappers.UserMapperImpl;
+import com.phegon.phegonbank.enums.AccountStatus;
+import com.phegon.phegonbank.enums.AccountType;
+import com.phegon.phegonbank.enums.Currency;
+import com.phegon.phegonbank.enums.TransactionStatus;
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.role.entity.Role;
+import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
+import com.phegon.phegonbank.transaction.entity.Transaction;
+import com.phegon.phegonbank.transaction.mappers.TransactionMapper;
+import com.phegon.phegonbank.transaction.mappers.TransactionMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ModelMapper setup the application used to register (private field access, STANDARD
+ * matching) against the generated MapStruct mappers that replaced it. The entity graph is
+ * fully populated, so ModelMapper walks the associations the way it did with loaded lazies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DtoMappingBenchmark {
+
+    @Param({"0", "50"})
+    public int transactionsPerAccount;
+
+    private ModelMapper modelMapper;
+    private final AccountMapper accountMapper = new AccountMapperImpl();
+    private final TransactionMapper transactionMapper = new TransactionMapperImpl();
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private User user;
+    private Account account;
+    private Transaction transaction;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(org.modelmapper.config.Configuration.AccessLevel.PRIVATE)
+                .setMatchingStrategy(MatchingStrategies.STANDARD);
+
+        user = User.builder()
+                .id(1L)
+                .firstName("Bench")
+                .lastName("Mark")
+                .email("bench.mark@phegonbank.com")
+                .phoneNumber("0800000000")
+                .password("$2a$10$abcdefghijklmnopqrstuv")
+                .active(true)
+                .roles(List.of(Role.builder().id(1L).name("CUSTOMER").build()))
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        account = Account.builder()
+                .id(10L)
+                .accountNumber("6612345678")
+                .balance(new BigDecimal("1520.75"))
+                .accountType(AccountType.SAVINGS)
+                .currency(Currency.USD)
+                .accountStatus(AccountStatus.ACTIVE)
+                .user(user)
+                .createdAt(LocalDateTime.now())
+                .transactions(new ArrayList<>())
+                .build();
+        user.setAccounts(List.of(account));
+
+        for (int i = 0; i < transactionsPerAccount; i++) {
+            account.getTransactions().add(transaction(100L + i));
+        }
+        transaction = transaction(99L);
+    }
+
+    @Benchmark
+    public AccountDTO accountModelMapper() {
+        return modelMapper.map(account, AccountDTO.class);
+    }
+
+    @Benchmark
+    public AccountDTO accountMapStruct() {
+        return accountMapper.toDto(account);
+    }
+
+    @Benchmark
+    public TransactionDTO transactionModelMapper() {
+        return modelMapper.map(transaction, TransactionDTO.class);
+    }
+
+    @Benchmark
+    public TransactionDTO transactionMapStruct() {
+        return transactionMapper.toDto(transaction);
+    }
+
+    @Benchmark
+    public UserDTO userModelMapper() {
+        return modelMapper.map(user, UserDTO.class);
+    }
+
+    @Benchmark
+    public UserDTO userMapStruct() {
+        return userMapper.toDto(user);
+    }
+
+    private Transaction transaction(long id) {
+        Transaction txn = new Transaction();
+        txn.setId(id);
+        txn.setAmount(new BigDecimal("25.00"));
+        txn.setTransactionType(TransactionType.TRANSFER);
+        txn.setTransactionDate(LocalDateTime.now());
+        txn.setDescription("benchmark transfer");
+        txn.setTransactionStatus(TransactionStatus.SUCCESS);
+        txn.setAccount(account);
+        txn.setSourceAccount(account.getAccountNumber());
+        txn.setDestinationAccount("6687654321");
+        return txn;
+    }
+}
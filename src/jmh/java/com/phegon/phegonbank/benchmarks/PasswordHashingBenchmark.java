@@ -0,0 +1,71 @@
+package com.phegon.phegonbank.benchmarks;
+
+import com.phegon.phegonbank.security.PasswordHasher;
+import com.phegon.phegonbank.security.SecurityFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// login cost: BCrypt verification with the encoder the application actually registers, per bank.security.bcrypt.cost,
+// directly and through the PasswordHasher pool (the difference is the hand-off to the hashing thread)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "12"})
+    public int cost;
+
+    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = new SecurityFilter(null, null, null).passwordEncoder(cost);
+        passwordHasher = new PasswordHasher(passwordEncoder, cost, 1, 0, 10000);
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        passwordHasher.stop();
+    }
+
+    @Benchmark
+    public boolean matchesCorrectPassword() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean matchesWrongPassword() {
+        return passwordEncoder.matches("wrong password", hash);
+    }
+
+    @Benchmark
+    public boolean matchesThroughHasher() {
+        return passwordHasher.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+}
@@ -0,0 +1,68 @@
+package com.phegon.phegonbank.benchmarks;
+
+import com.phegon.phegonbank.config.AppConfig;
+import com.phegon.phegonbank.notification.rendering.TemplateRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// the per-transaction email rendering, with the engine configured exactly like AppConfig does it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TemplateRenderingBenchmark {
+
+    @Param({"credit-alert", "debit-alert"})
+    public String template;
+
+    private TemplateEngine templateEngine;
+    private TemplateRenderer templateRenderer;
+    private Map<String, Object> templateVariables;
+
+    @Setup
+    public void setUp() throws Exception {
+        templateEngine = new AppConfig().templateEngine(200, TimeUnit.HOURS.toMillis(24));
+        templateRenderer = new TemplateRenderer(templateEngine, 64);
+        templateRenderer.preload();
+
+        // same variables TransactionNotificationSender builds
+        templateVariables = new HashMap<>();
+        templateVariables.put("name", "Bench");
+        templateVariables.put("amount", new BigDecimal("25.00"));
+        templateVariables.put("accountNumber", "6612345678");
+        templateVariables.put("date", LocalDateTime.now());
+        templateVariables.put("balance", new BigDecimal("1520.75"));
+    }
+
+    @Benchmark
+    public String render() {
+        Context context = new Context();
+        context.setVariables(templateVariables);
+        return templateEngine.process(template, context);
+    }
+
+    // what EmailDelivery does: preloaded templates, pooled output buffer
+    @Benchmark
+    public String renderPooled() {
+        return templateRenderer.render(template, templateVariables);
+    }
+}
@@ -0,0 +1,109 @@
+package com.phegon.phegonbank.benchmarks;
+
+import com.phegon.phegonbank.role.entity.Role;
+import com.phegon.phegonbank.security.TokenPrincipal;
+import com.phegon.phegonbank.security.TokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the JWT work AuthFilter does on every authenticated request, plus issuing a token at login
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TokenServiceBenchmark {
+
+    private static final String EMAIL = "benchmark.user@phegonbank.com";
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private TokenService tokenService;
+    private TokenService uncachedTokenService;
+    private SecretKey key;
+    private com.phegon.phegonbank.auth_users.entity.User user;
+    private String token;
+    private UserDetails userDetails;
+
+    @Setup
+    public void setUp() {
+        tokenService = tokenService(10_000);
+        uncachedTokenService = tokenService(0);
+        byte[] keyBytes = SECRET.getBytes(StandardCharsets.UTF_8);
+        key = new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256");
+
+        user = com.phegon.phegonbank.auth_users.entity.User.builder()
+                .id(1L)
+                .email(EMAIL)
+                .roles(List.of(Role.builder().name("CUSTOMER").build()))
+                .build();
+        token = tokenService.generateToken(user);
+        userDetails = User.withUsername(EMAIL).password("unused").authorities("CUSTOMER").build();
+    }
+
+    private static TokenService tokenService(int verifiedCacheSize) {
+        TokenService service = new TokenService();
+        ReflectionTestUtils.setField(service, "JWT_SECRET", SECRET);
+        ReflectionTestUtils.setField(service, "EXPIRATION_TIME", TimeUnit.DAYS.toMillis(1));
+        ReflectionTestUtils.setField(service, "VERIFIED_CACHE_SIZE", verifiedCacheSize);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenService.generateToken(user);
+    }
+
+    // per-request auth cost before: getUsernameFromToken, then isTokenValid parsing twice more,
+    // each parse building a new JwtParser
+    @Benchmark
+    public boolean authCheckBefore() {
+        String username = parseWithNewParser().getSubject();
+        return username.equals(userDetails.getUsername())
+                && parseWithNewParser().getSubject().equals(userDetails.getUsername())
+                && !parseWithNewParser().getExpiration().before(new Date());
+    }
+
+    // after, cache disabled: one parse with the shared parser
+    @Benchmark
+    public boolean authCheckAfterUncached() {
+        return uncachedTokenService.verify(token).getSubject().equals(userDetails.getUsername());
+    }
+
+    // after, token seen before: digest plus cache lookup
+    @Benchmark
+    public boolean authCheckAfterCached() {
+        return tokenService.verify(token).getSubject().equals(userDetails.getUsername());
+    }
+
+    // what AuthFilter does now: cached verify plus the principal built from claims, no user lookup
+    @Benchmark
+    public TokenPrincipal authPrincipalFromClaims() {
+        return tokenService.principalOf(tokenService.verify(token));
+    }
+
+    private Claims parseWithNewParser() {
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,107 @@
+package com.phegon.phegonbank.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Raw per-endpoint latency samples. Each load worker owns one recorder (no locking on the hot
+ * path) and the recorders are merged once the run is over. Every sample is kept, so percentiles
+ * are exact rather than bucketed.
+ */
+class LatencyRecorder {
+
+    private final Map<String, Samples> endpoints = new TreeMap<>();
+
+    void record(String endpoint, long nanos, boolean ok) {
+        Samples samples = endpoints.computeIfAbsent(endpoint, key -> new Samples());
+        samples.add(nanos);
+        if (!ok) {
+            samples.errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        other.endpoints.forEach((endpoint, samples) ->
+                endpoints.computeIfAbsent(endpoint, key -> new Samples()).addAll(samples));
+    }
+
+    long requests() {
+        return endpoints.values().stream().mapToLong(samples -> samples.size).sum();
+    }
+
+    long errors() {
+        return endpoints.values().stream().mapToLong(samples -> samples.errors).sum();
+    }
+
+    // one entry per endpoint plus "ALL", latencies in milliseconds
+    Map<String, Object> report(double seconds) {
+        Samples all = new Samples();
+        Map<String, Object> report = new LinkedHashMap<>();
+        endpoints.forEach((endpoint, samples) -> {
+            report.put(endpoint, summary(samples, seconds));
+            all.addAll(samples);
+        });
+        report.put("ALL", summary(all, seconds));
+        return report;
+    }
+
+    private static Map<String, Object> summary(Samples samples, double seconds) {
+        long[] sorted = Arrays.copyOf(samples.nanos, samples.size);
+        Arrays.sort(sorted);
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", millis(percentile(sorted, 0.50)));
+        latency.put("p99", millis(percentile(sorted, 0.99)));
+        latency.put("p999", millis(percentile(sorted, 0.999)));
+        latency.put("max", millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        latency.put("mean", millis(sorted.length == 0 ? 0 : Arrays.stream(sorted).sum() / sorted.length));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", samples.size);
+        summary.put("errors", samples.errors);
+        summary.put("throughputPerSecond", round(samples.size / seconds));
+        summary.put("latencyMillis", latency);
+        return summary;
+    }
+
+    // nearest-rank percentile
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+        }
+
+        void addAll(Samples other) {
+            if (size + other.size > nanos.length) {
+                nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, size + other.size));
+            }
+            System.arraycopy(other.nanos, 0, nanos, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.phegon.phegonbank.loadtest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.regions.Region;
+
+// replaces the real S3 client for everything that injects one; S3Config's client is built but never called
+@TestConfiguration(proxyBeanMethods = false)
+class LoadTestConfig {
+
+    @Bean
+    @Primary
+    InMemoryS3Client inMemoryS3Client(@Value("${aws.region}") String region) {
+        return new InMemoryS3Client(Region.of(region));
+    }
+}
@@ -0,0 +1,324 @@
+package com.phegon.phegonbank.loadtest;
+
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.auth_users.repo.UserRepo;
+import com.phegon.phegonbank.enums.AccountStatus;
+import com.phegon.phegonbank.enums.AccountType;
+import com.phegon.phegonbank.enums.Currency;
+import com.phegon.phegonbank.role.entity.Role;
+import com.phegon.phegonbank.role.repo.RoleRepo;
+import com.phegon.phegonbank.security.TokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the whole application on a random port against H2 (MySQL mode, Flyway schema), the
+ * in-process SMTP sink and the in-memory S3 client, seeds loadtest.users customers with one
+ * funded account each, then drives the configured mix of transaction and read requests over
+ * HTTP from loadtest.concurrency threads. After loadtest.warmup-seconds of unrecorded traffic it
+ * measures for loadtest.duration-seconds and writes per-endpoint throughput and p50/p99/p999
+ * latencies to loadtest.output.
+ * <p>
+ * Run with mvn -Ploadtest test; see application-loadtest.properties for the knobs.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+@Import(LoadTestConfig.class)
+@Slf4j
+class TransactionLoadTest {
+
+    private static final SmtpSink SMTP_SINK = startSmtpSink();
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    enum Operation {
+        DEPOSIT("POST /api/transactions DEPOSIT"),
+        WITHDRAW("POST /api/transactions WITHDRAW"),
+        TRANSFER("POST /api/transactions TRANSFER"),
+        HISTORY("GET /api/transactions/{accountNumber}/history"),
+        ACCOUNT_DETAILS("GET /api/accounts/me");
+
+        private final String endpoint;
+
+        Operation(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private record Customer(String token, String accountNumber) {
+    }
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.port", SMTP_SINK::port);
+    }
+
+    @AfterAll
+    static void stopSmtpSink() throws IOException {
+        SMTP_SINK.close();
+    }
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private AccountRepo accountRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private InMemoryS3Client s3Client;
+    @Autowired
+    private Environment environment;
+
+    @Value("${loadtest.users}")
+    private int userCount;
+    @Value("${loadtest.concurrency}")
+    private int concurrency;
+    @Value("${loadtest.warmup-seconds}")
+    private int warmupSeconds;
+    @Value("${loadtest.duration-seconds}")
+    private int durationSeconds;
+    @Value("${loadtest.mix}")
+    private String mix;
+    @Value("${loadtest.max-error-rate}")
+    private double maxErrorRate;
+    @Value("${loadtest.output}")
+    private String output;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void mixedTraffic() throws Exception {
+        assertThat(userCount).as("loadtest.users (transfers need two accounts)").isGreaterThanOrEqualTo(2);
+        List<Customer> customers = seedCustomers();
+        Map<Operation, Integer> weights = parseMix(mix);
+        int totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+
+        Instant startedAt = Instant.now();
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+        long measureUntil = measureFrom + Duration.ofSeconds(durationSeconds).toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<LatencyRecorder>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            results.add(workers.submit(() -> drive(customers, weights, totalWeight, measureFrom, measureUntil)));
+        }
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (Future<LatencyRecorder> result : results) {
+            recorder.merge(result.get());
+        }
+        workers.shutdown();
+
+        writeReport(startedAt, recorder);
+
+        double errorRate = recorder.requests() == 0 ? 1.0 : (double) recorder.errors() / recorder.requests();
+        assertThat(recorder.requests()).as("measured requests").isPositive();
+        assertThat(errorRate).as("error rate").isLessThanOrEqualTo(maxErrorRate);
+    }
+
+    private LatencyRecorder drive(List<Customer> customers, Map<Operation, Integer> weights, int totalWeight,
+                                  long measureFrom, long measureUntil) {
+        LatencyRecorder recorder = new LatencyRecorder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String baseUrl = "http://localhost:" + port;
+
+        long now;
+        while ((now = System.nanoTime()) < measureUntil) {
+            Operation operation = pick(weights, totalWeight, random.nextInt(totalWeight));
+            Customer customer = customers.get(random.nextInt(customers.size()));
+            HttpRequest request = request(baseUrl, operation, customer, customers, random);
+
+            boolean ok;
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                ok = response.statusCode() / 100 == 2;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (now >= measureFrom) {
+                recorder.record(operation.endpoint, elapsed, ok);
+            }
+        }
+        return recorder;
+    }
+
+    private HttpRequest request(String baseUrl, Operation operation, Customer customer,
+                                List<Customer> customers, ThreadLocalRandom random) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + customer.token());
+
+        return switch (operation) {
+            case HISTORY -> builder.uri(URI.create(baseUrl + "/api/transactions/" + customer.accountNumber() + "/history?size=20"))
+                    .GET().build();
+            case ACCOUNT_DETAILS -> builder.uri(URI.create(baseUrl + "/api/accounts/me")).GET().build();
+            default -> {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("transactionType", operation.name());
+                body.put("amount", BigDecimal.valueOf(random.nextLong(100, 10_000), 2));
+                body.put("accountNumber", customer.accountNumber());
+                body.put("description", "load test");
+                if (operation == Operation.TRANSFER) {
+                    String destination;
+                    do {
+                        destination = customers.get(random.nextInt(customers.size())).accountNumber();
+                    } while (destination.equals(customer.accountNumber()));
+                    body.put("destinationAccountNumber", destination);
+                }
+                yield builder.uri(URI.create(baseUrl + "/api/transactions"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                        .build();
+            }
+        };
+    }
+
+    // users and accounts go straight through the repositories, registering over HTTP would hash a password per user
+    private List<Customer> seedCustomers() {
+        Role customerRole = roleRepo.findByName("CUSTOMER")
+                .orElseGet(() -> roleRepo.save(Role.builder().name("CUSTOMER").build()));
+        String password = passwordEncoder.encode("loadtest-password");
+
+        List<Customer> customers = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User user = userRepo.save(User.builder()
+                    .firstName("Load")
+                    .lastName("User" + i)
+                    .email("load.user" + i + "@phegonbank.local")
+                    .password(password)
+                    .roles(List.of(customerRole))
+                    .active(true)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            Account account = accountRepo.save(Account.builder()
+                    .accountNumber(String.format("77%08d", i))
+                    .balance(OPENING_BALANCE)
+                    .accountType(AccountType.SAVINGS)
+                    .currency(Currency.USD)
+                    .accountStatus(AccountStatus.ACTIVE)
+                    .user(user)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            customers.add(new Customer(tokenService.generateToken(user), account.getAccountNumber()));
+        }
+        log.info("Seeded {} load test customers", customers.size());
+        return customers;
+    }
+
+    private void writeReport(Instant startedAt, LatencyRecorder recorder) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("users", userCount);
+        config.put("concurrency", concurrency);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("durationSeconds", durationSeconds);
+        config.put("mix", parseMix(mix));
+        config.put("transactionEngine", environment.getProperty("bank.transactions.engine"));
+        config.put("concurrencyMode", environment.getProperty("bank.transactions.concurrency-mode"));
+        config.put("datasourceUrl", environment.getProperty("spring.datasource.url"));
+
+        Map<String, Object> sideEffects = new LinkedHashMap<>();
+        sideEffects.put("smtpMessages", SMTP_SINK.messages());
+        sideEffects.put("smtpConnections", SMTP_SINK.connections());
+        sideEffects.put("s3Objects", s3Client.objectCount());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("config", config);
+        report.put("endpoints", recorder.report(durationSeconds));
+        report.put("sideEffects", sideEffects);
+
+        File file = new File(output);
+        if (file.getParentFile() != null && !file.getParentFile().mkdirs() && !file.getParentFile().isDirectory()) {
+            throw new UncheckedIOException(new IOException("Cannot create " + file.getParentFile()));
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        log.info("Load test: {} requests, {} errors, report written to {}", recorder.requests(), recorder.errors(), file.getAbsolutePath());
+    }
+
+    private static Operation pick(Map<Operation, Integer> weights, int totalWeight, int roll) {
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Roll beyond total weight " + totalWeight);
+    }
+
+    // "DEPOSIT:25,WITHDRAW:15,..." -> weights, operations left out get no traffic
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split(":");
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(entry[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights: " + mix);
+        }
+        return weights;
+    }
+
+    private static SmtpSink startSmtpSink() {
+        try {
+            return new SmtpSink();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -56,4 +56,7 @@ public class Account {
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt;
     private LocalDateTime closedAt;
+
+    @Version
+    private long version; // bumped on every balance update, checked by the optimistic mode
 }
@@ -0,0 +1,189 @@
+package com.phegon.phegonbank.account.locking;
+
+import com.phegon.phegonbank.exceptions.ConcurrentUpdateException;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-JVM striped locks keyed by account number. Two requests touching unrelated accounts
+ * almost always land on different stripes and run in parallel; requests on the same hot
+ * account queue here instead of piling up on the database row lock.
+ * Stripes are always taken in ascending index order so a transfer can never deadlock
+ * against another transfer going the opposite way.
+ */
+@Component
+public class AccountLockManager implements MetricsSource {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+
+    public AccountLockManager(@Value("${bank.locking.stripes:64}") int stripeCount,
+                              @Value("${bank.locking.timeout-ms:5000}") long timeoutMillis) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1; // power of two so the stripe index is a simple mask
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Locks the stripes of all given accounts. When called inside a Spring-managed transaction
+     * the locks are released after commit/rollback, otherwise the caller must close the handle.
+     */
+    public AccountLocks lock(Collection<String> accountNumbers) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String accountNumber : accountNumbers) {
+            if (accountNumber != null) {
+                indexes.add(stripeIndex(accountNumber));
+            }
+        }
+
+        List<Stripe> acquired = new ArrayList<>(indexes.size());
+        try {
+            for (int index : indexes) {
+                stripes[index].acquire(timeoutMillis);
+                acquired.add(stripes[index]);
+            }
+        } catch (RuntimeException e) {
+            releaseAll(acquired);
+            throw e;
+        }
+
+        AccountLocks locks = new AccountLocks(acquired);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    locks.close();
+                }
+            });
+        }
+        return locks;
+    }
+
+    int stripeIndex(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static void releaseAll(List<Stripe> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).lock.unlock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "account-locks";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        long acquisitions = 0;
+        long contended = 0;
+        long waitNanos = 0;
+        List<Map<String, Object>> busyStripes = new ArrayList<>();
+
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            long stripeAcquisitions = stripe.acquisitions.sum();
+            long stripeContended = stripe.contended.sum();
+            long stripeWait = stripe.waitNanos.sum();
+            acquisitions += stripeAcquisitions;
+            contended += stripeContended;
+            waitNanos += stripeWait;
+
+            if (stripeAcquisitions == 0) {
+                continue;
+            }
+            Map<String, Object> stripeStats = new LinkedHashMap<>();
+            stripeStats.put("stripe", i);
+            stripeStats.put("acquisitions", stripeAcquisitions);
+            stripeStats.put("contended", stripeContended);
+            stripeStats.put("timeouts", stripe.timeouts.sum());
+            stripeStats.put("totalWaitMicros", TimeUnit.NANOSECONDS.toMicros(stripeWait));
+            stripeStats.put("maxWaitMicros", TimeUnit.NANOSECONDS.toMicros(stripe.maxWaitNanos.get()));
+            stripeStats.put("queued", stripe.lock.getQueueLength());
+            busyStripes.add(stripeStats);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripeCount", stripes.length);
+        stats.put("acquisitions", acquisitions);
+        stats.put("contended", contended);
+        stats.put("totalWaitMicros", TimeUnit.NANOSECONDS.toMicros(waitNanos));
+        stats.put("stripes", busyStripes);
+        return stats;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void acquire(long timeoutMillis) {
+            acquisitions.increment();
+            if (lock.tryLock()) {
+                return; // uncontended fast path, no clock reads
+            }
+
+            contended.increment();
+            long start = System.nanoTime();
+            boolean locked;
+            try {
+                locked = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConcurrentUpdateException("Interrupted while waiting for account lock");
+            } finally {
+                long waited = System.nanoTime() - start;
+                waitNanos.add(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+            }
+
+            if (!locked) {
+                timeouts.increment();
+                throw new ConcurrentUpdateException("Account is busy, please retry");
+            }
+        }
+    }
+
+    public static final class AccountLocks implements AutoCloseable {
+        private List<Stripe> held;
+
+        private AccountLocks(List<Stripe> held) {
+            this.held = held;
+        }
+
+        @Override
+        public void close() {
+            if (held != null) {
+                releaseAll(held);
+                held = null;
+            }
+        }
+    }
+}
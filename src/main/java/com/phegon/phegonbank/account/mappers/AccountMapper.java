@@ -0,0 +1,15 @@
+package com.phegon.phegonbank.account.mappers;
+
+import com.phegon.phegonbank.account.dtos.AccountDTO;
+import com.phegon.phegonbank.account.entity.Account;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+// implementation is generated at compile time; the lazy user and transactions associations are never touched
+@Mapper(componentModel = "spring")
+public interface AccountMapper {
+
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "transactions", ignore = true)
+    AccountDTO toDto(Account account);
+}
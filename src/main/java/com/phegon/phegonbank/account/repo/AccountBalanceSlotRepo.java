@@ -0,0 +1,29 @@
+package com.phegon.phegonbank.account.repo;
+
+import com.phegon.phegonbank.account.entity.AccountBalanceSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface AccountBalanceSlotRepo extends JpaRepository<AccountBalanceSlot, Long> {
+    List<AccountBalanceSlot> findByAccountId(Long accountId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AccountBalanceSlot s where s.accountId = :accountId order by s.slot")
+    List<AccountBalanceSlot> findByAccountIdForUpdate(@Param("accountId") Long accountId);
+
+    // atomic increment, only this one slot row is locked
+    @Modifying
+    @Query("update AccountBalanceSlot s set s.balance = s.balance + :amount " +
+            "where s.accountId = :accountId and s.slot = :slot")
+    int addToSlot(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("amount") BigDecimal amount);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s where s.accountId = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,11 @@
+package com.phegon.phegonbank.account.repo;
+
+import java.math.BigDecimal;
+
+// just the columns a balance update needs, read without loading a managed Account
+public interface AccountBalanceView {
+    Long getId();
+    String getAccountNumber();
+    BigDecimal getBalance();
+    long getVersion();
+}
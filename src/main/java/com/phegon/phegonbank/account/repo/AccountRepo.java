@@ -2,12 +2,45 @@ package com.phegon.phegonbank.account.repo;
 
 import com.phegon.phegonbank.account.entity.Account;
 import com.phegon.phegonbank.enums.AccountStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepo extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
     List<Account> findByUserId(Long userId);
+
+    // SELECT ... FOR UPDATE, row stays locked until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
+    // one IN query for a whole batch; ordered so the row locks are always taken in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNumber in :accountNumbers order by a.accountNumber")
+    List<Account> findAllByAccountNumberInForUpdate(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // owners come along in the same query, for building emails outside the transaction that loaded them
+    @Query("select a from Account a join fetch a.user where a.accountNumber in :accountNumbers")
+    List<Account> findAllWithUserByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    @Query("select a.id as id, a.accountNumber as accountNumber, a.balance as balance, a.version as version " +
+            "from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountBalanceView> findBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // returns 0 when someone else changed the row since we read it
+    @Modifying
+    @Query("update Account a set a.balance = :balance, a.version = a.version + 1 " +
+            "where a.id = :id and a.version = :version")
+    int updateBalanceIfVersionMatches(@Param("id") Long id,
+                                      @Param("balance") BigDecimal balance,
+                                      @Param("version") long version);
 }
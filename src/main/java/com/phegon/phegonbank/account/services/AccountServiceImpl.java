@@ -2,7 +2,9 @@ package com.phegon.phegonbank.account.services;
 
 import com.phegon.phegonbank.account.dtos.AccountDTO;
 import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.mappers.AccountMapper;
 import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.account.sharding.ShardedBalanceManager;
 import com.phegon.phegonbank.auth_users.entity.User;
 import com.phegon.phegonbank.auth_users.services.UserService;
 import com.phegon.phegonbank.enums.AccountStatus;
@@ -14,7 +16,6 @@ import com.phegon.phegonbank.res.Response;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -30,7 +31,8 @@ import java.util.Random;
 public class AccountServiceImpl implements AccountService {
     private final AccountRepo accountRepo;
     private final UserService userService;
-    private final ModelMapper modelMapper;
+    private final AccountMapper accountMapper;
+    private final ShardedBalanceManager shardedBalanceManager;
     private final Random random =  new Random();
 
 
@@ -53,11 +55,15 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public Response<List<AccountDTO>> getMyAccounts() {
-        User user = userService.getCurrentLoggedUser();
+        Long userId = userService.getCurrentUserId();
 
-        List<AccountDTO> accounts = accountRepo.findByUserId(user.getId())
+        List<AccountDTO> accounts = accountRepo.findByUserId(userId)
                 .stream()
-                .map(account->modelMapper.map(account, AccountDTO.class))
+                .map(account -> {
+                    AccountDTO dto = accountMapper.toDto(account);
+                    dto.setBalance(shardedBalanceManager.balanceOf(account));
+                    return dto;
+                })
                 .toList();
 
         return Response.<List<AccountDTO>>builder()
@@ -69,15 +75,15 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public Response<?> closeAccount(String accountNumber) {
-        User user = userService.getCurrentLoggedUser();
+        Long userId = userService.getCurrentUserId();
         Account account = accountRepo.findByAccountNumber(accountNumber)
                 .orElseThrow(()->new NotFoundException("Account not found"));
 
-        if(!user.getAccounts().contains(account)) {
+        if(!account.getUser().getId().equals(userId)) {
             throw new NotFoundException("Account does not belong to you");
         }
 
-        if(account.getBalance().compareTo(BigDecimal.ZERO) > 0) {
+        if(shardedBalanceManager.balanceOf(account).compareTo(BigDecimal.ZERO) > 0) {
             throw new BadRequestException("Account balance must be 0 before closing");
         }
         account.setAccountStatus(AccountStatus.CLOSED);
@@ -0,0 +1,236 @@
+package com.phegon.phegonbank.account.sharding;
+
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.entity.AccountBalanceSlot;
+import com.phegon.phegonbank.account.locking.AccountLockManager;
+import com.phegon.phegonbank.account.repo.AccountBalanceSlotRepo;
+import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.exceptions.NotFoundException;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in balance sharding for hot collector accounts listed in bank.sharding.accounts.
+ * A credit to such an account adds to one randomly chosen slot row without touching (or locking)
+ * the account row, so concurrent credits only collide when they pick the same slot.
+ * The true balance is accounts.balance plus the slots; debits fold the slots back in when the
+ * main balance alone is short, and a scheduled folder collapses them regularly.
+ */
+@Component
+@Slf4j
+public class ShardedBalanceManager implements MetricsSource {
+
+    private final AccountRepo accountRepo;
+    private final AccountBalanceSlotRepo slotRepo;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<String> shardedAccounts;
+    private final int slotCount;
+    private final Map<String, Long> accountIds = new ConcurrentHashMap<>();
+    private final Map<String, SlotStats> stats = new ConcurrentHashMap<>();
+
+    public ShardedBalanceManager(AccountRepo accountRepo,
+                                 AccountBalanceSlotRepo slotRepo,
+                                 AccountLockManager accountLockManager,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${bank.sharding.accounts:}") List<String> shardedAccounts,
+                                 @Value("${bank.sharding.slots:8}") int slotCount) {
+        this.accountRepo = accountRepo;
+        this.slotRepo = slotRepo;
+        this.accountLockManager = accountLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.shardedAccounts = new TreeSet<>();
+        for (String accountNumber : shardedAccounts) {
+            if (!accountNumber.isBlank()) {
+                this.shardedAccounts.add(accountNumber.trim());
+            }
+        }
+        this.slotCount = Math.max(1, slotCount);
+    }
+
+    // make sure every sharded account has its slot rows before any traffic arrives
+    @PostConstruct
+    void createSlots() {
+        for (String accountNumber : shardedAccounts) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Account account = accountRepo.findByAccountNumber(accountNumber).orElse(null);
+                if (account == null) {
+                    log.warn("Sharded account {} does not exist, it will not be sharded", accountNumber);
+                    return;
+                }
+                accountIds.put(accountNumber, account.getId());
+                stats.put(accountNumber, new SlotStats(slotCount));
+
+                Set<Integer> existing = new TreeSet<>();
+                for (AccountBalanceSlot slot : slotRepo.findByAccountId(account.getId())) {
+                    existing.add(slot.getSlot());
+                }
+                for (int i = 0; i < slotCount; i++) {
+                    if (!existing.contains(i)) {
+                        slotRepo.save(AccountBalanceSlot.builder()
+                                .accountId(account.getId())
+                                .slot(i)
+                                .balance(BigDecimal.ZERO)
+                                .build());
+                    }
+                }
+            });
+        }
+        if (!shardedAccounts.isEmpty()) {
+            log.info("Balance sharding enabled for {} accounts with {} slots each", accountIds.size(), slotCount);
+        }
+    }
+
+    // only accounts that existed at startup are sharded, anything else takes the normal path
+    public boolean isSharded(String accountNumber) {
+        return accountNumber != null && accountIds.containsKey(accountNumber);
+    }
+
+    // what the customer owns: accounts.balance plus the slot credits not folded in yet
+    public BigDecimal balanceOf(Account account) {
+        if (!isSharded(account.getAccountNumber())) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(slotRepo.sumByAccountId(account.getId()));
+    }
+
+    public Long accountId(String accountNumber) {
+        Long accountId = accountIds.get(accountNumber);
+        if (accountId == null) {
+            throw new NotFoundException("Account not found");
+        }
+        return accountId;
+    }
+
+    /**
+     * Adds the amount to a random slot of a sharded account; must run inside the caller's transaction.
+     * Returns the account id so the caller can reference the account without loading it.
+     */
+    public Long credit(String accountNumber, BigDecimal amount) {
+        Long accountId = accountId(accountNumber);
+        int slot = ThreadLocalRandom.current().nextInt(slotCount);
+
+        long start = System.nanoTime();
+        int updated = slotRepo.addToSlot(accountId, slot, amount);
+        stats.get(accountNumber).recordCredit(slot, System.nanoTime() - start);
+
+        if (updated == 0) {
+            throw new IllegalStateException("Balance slot " + slot + " missing for account " + accountNumber);
+        }
+        return accountId;
+    }
+
+    // called with the account row already locked, before a debit checks the balance
+    public void foldIfShort(Account lockedAccount, BigDecimal amount) {
+        if (isSharded(lockedAccount.getAccountNumber()) && lockedAccount.getBalance().compareTo(amount) < 0) {
+            fold(lockedAccount);
+        }
+    }
+
+    private void fold(Account lockedAccount) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBalanceSlot slot : slotRepo.findByAccountIdForUpdate(lockedAccount.getId())) {
+            if (slot.getBalance().signum() != 0) {
+                total = total.add(slot.getBalance());
+                slot.setBalance(BigDecimal.ZERO);
+            }
+        }
+        if (total.signum() != 0) {
+            lockedAccount.setBalance(lockedAccount.getBalance().add(total));
+            accountRepo.save(lockedAccount);
+        }
+        stats.get(lockedAccount.getAccountNumber()).folds.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${bank.sharding.fold-interval-ms:5000}")
+    public void foldAll() {
+        for (String accountNumber : accountIds.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    accountLockManager.lock(List.of(accountNumber));
+                    accountRepo.findByAccountNumberForUpdate(accountNumber).ifPresent(this::fold);
+                });
+            } catch (RuntimeException e) {
+                log.warn("Folding balance slots for {} failed: {}", accountNumber, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "balance-shards";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> accounts = new LinkedHashMap<>();
+        stats.forEach((accountNumber, slotStats) -> accounts.put(accountNumber, slotStats.toMap()));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("slotsPerAccount", slotCount);
+        snapshot.put("accounts", accounts);
+        return snapshot;
+    }
+
+    private static final class SlotStats {
+        private final LongAdder credits = new LongAdder();
+        private final LongAdder folds = new LongAdder();
+        private final LongAdder updateNanos = new LongAdder();
+        private final AtomicLong maxUpdateNanos = new AtomicLong();
+        private final AtomicLongArray slotCredits;
+        private final AtomicLongArray slotNanos;
+
+        SlotStats(int slotCount) {
+            this.slotCredits = new AtomicLongArray(slotCount);
+            this.slotNanos = new AtomicLongArray(slotCount);
+        }
+
+        // slot UPDATE latency is dominated by row lock waits, so it doubles as the contention signal
+        void recordCredit(int slot, long nanos) {
+            credits.increment();
+            updateNanos.add(nanos);
+            maxUpdateNanos.accumulateAndGet(nanos, Math::max);
+            slotCredits.incrementAndGet(slot);
+            slotNanos.addAndGet(slot, nanos);
+        }
+
+        Map<String, Object> toMap() {
+            long count = credits.sum();
+            long[] perSlotCredits = new long[slotCredits.length()];
+            long[] perSlotAvgMicros = new long[slotCredits.length()];
+            for (int i = 0; i < perSlotCredits.length; i++) {
+                perSlotCredits[i] = slotCredits.get(i);
+                perSlotAvgMicros[i] = perSlotCredits[i] == 0 ? 0
+                        : TimeUnit.NANOSECONDS.toMicros(slotNanos.get(i) / perSlotCredits[i]);
+            }
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("credits", count);
+            map.put("folds", folds.sum());
+            map.put("avgUpdateMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(updateNanos.sum() / count));
+            map.put("maxUpdateMicros", TimeUnit.NANOSECONDS.toMicros(maxUpdateNanos.get()));
+            map.put("slotCredits", perSlotCredits);
+            map.put("slotAvgUpdateMicros", perSlotAvgMicros);
+            return map;
+        }
+    }
+}
@@ -3,15 +3,19 @@ package com.phegon.phegonbank.audit_dashboard.controller;
 import com.phegon.phegonbank.account.dtos.AccountDTO;
 import com.phegon.phegonbank.audit_dashboard.services.AuditorService;
 import com.phegon.phegonbank.auth_users.dtos.UserDTO;
+import com.phegon.phegonbank.enums.ExportFormat;
 import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -60,6 +64,20 @@ public class AuditorController {
 
     }
 
+    // format=NDJSON (one JSON object per line) or format=CSV
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam String accountNumber,
+                                                                    @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = auditorService.exportTransactions(accountNumber, format);
+        String extension = format == ExportFormat.CSV ? "csv" : "ndjson";
+
+        return ResponseEntity.ok()
+                .contentType(format == ExportFormat.CSV ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions-" + accountNumber + "." + extension + "\"")
+                .body(body);
+    }
+
 
 
 }
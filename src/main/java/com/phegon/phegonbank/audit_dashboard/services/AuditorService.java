@@ -2,7 +2,9 @@ package com.phegon.phegonbank.audit_dashboard.services;
 
 import com.phegon.phegonbank.account.dtos.AccountDTO;
 import com.phegon.phegonbank.auth_users.dtos.UserDTO;
+import com.phegon.phegonbank.enums.ExportFormat;
 import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -14,5 +16,6 @@ public interface AuditorService {
     Optional<AccountDTO> findAccountDetailsByAccountNumber(String accountNumber);
     List<TransactionDTO> findTransactionsByAccountNumber(String accountNumber);
     Optional<TransactionDTO> findTransactionById(Long transactionId);
+    StreamingResponseBody exportTransactions(String accountNumber, ExportFormat format);
 
 }
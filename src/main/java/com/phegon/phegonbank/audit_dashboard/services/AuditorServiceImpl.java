@@ -1,16 +1,29 @@
 package com.phegon.phegonbank.audit_dashboard.services;
 
 import com.phegon.phegonbank.account.dtos.AccountDTO;
+import com.phegon.phegonbank.account.mappers.AccountMapper;
 import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.account.sharding.ShardedBalanceManager;
 import com.phegon.phegonbank.auth_users.dtos.UserDTO;
+import com.phegon.phegonbank.auth_users.mappers.UserMapper;
 import com.phegon.phegonbank.auth_users.repo.UserRepo;
+import com.phegon.phegonbank.enums.ExportFormat;
+import com.phegon.phegonbank.exceptions.NotFoundException;
 import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
+import com.phegon.phegonbank.transaction.mappers.TransactionMapper;
 import com.phegon.phegonbank.transaction.repo.TransactionRepo;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,10 +31,17 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 public class AuditorServiceImpl implements AuditorService {
+    private static final String CSV_HEADER =
+            "id,transactionDate,transactionType,amount,transactionStatus,description,sourceAccount,destinationAccount\n";
+
     private final UserRepo userRepo;
     private final AccountRepo accountRepo;
     private final TransactionRepo transactionRepo;
-    private final ModelMapper modelMapper;
+    private final AccountMapper accountMapper;
+    private final ShardedBalanceManager shardedBalanceManager;
+    private final TransactionMapper transactionMapper;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
 
     @Override
     public Map<String, Long> getSystemTotals() {
@@ -40,20 +60,24 @@ public class AuditorServiceImpl implements AuditorService {
     @Override
     public Optional<UserDTO> findUserByEmail(String email) { //optional means ot might be null
         return userRepo.findByEmail(email)
-                .map(user -> modelMapper.map(user, UserDTO.class));
+                .map(userMapper::toDto);
     }
 
     @Override
     public Optional<AccountDTO> findAccountDetailsByAccountNumber(String accountNumber) {
         return accountRepo.findByAccountNumber(accountNumber)
-                .map(account -> modelMapper.map(account, AccountDTO.class));
+                .map(account -> {
+                    AccountDTO dto = accountMapper.toDto(account);
+                    dto.setBalance(shardedBalanceManager.balanceOf(account));
+                    return dto;
+                });
     }
 
     @Override
     public List<TransactionDTO> findTransactionsByAccountNumber(String accountNumber) {
         return transactionRepo.findByAccount_AccountNumber(accountNumber)
                 .stream()
-                .map(transaction -> modelMapper.map(transaction, TransactionDTO.class))
+                .map(transactionMapper::toDto)
                 .toList();
     }
 
@@ -61,6 +85,60 @@ public class AuditorServiceImpl implements AuditorService {
     @Override
     public Optional<TransactionDTO> findTransactionById(Long transactionId) {
         return transactionRepo.findById(transactionId)
-                .map(transaction -> modelMapper.map(transaction, TransactionDTO.class));
+                .map(transactionMapper::toDto);
+    }
+
+    /**
+     * The account is resolved up front so a bad account number is still a normal 404; the rows
+     * themselves are read through a JDBC cursor and written out one by one while the response
+     * is being sent, so memory use does not depend on how many transactions the account has.
+     */
+    @Override
+    public StreamingResponseBody exportTransactions(String accountNumber, ExportFormat format) {
+        Long accountId = accountRepo.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new NotFoundException("Account not found"))
+                .getId();
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            try {
+                transactionRepo.streamByAccountId(accountId, transaction -> {
+                    try {
+                        writer.write(format == ExportFormat.CSV ? toCsvLine(transaction) : objectMapper.writeValueAsString(transaction));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // client went away, stop reading rows
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+    }
+
+    private static String toCsvLine(TransactionDTO transaction) {
+        return transaction.getId() + "," +
+                transaction.getTransactionDate() + "," +
+                transaction.getTransactionType() + "," +
+                transaction.getAmount().toPlainString() + "," +
+                csv(transaction.getTransactionStatus() == null ? null : transaction.getTransactionStatus().name()) + "," +
+                csv(transaction.getDescription()) + "," +
+                csv(transaction.getSourceAccount()) + "," +
+                csv(transaction.getDestinationAccount());
+    }
+
+    // RFC 4180 quoting, only when the value needs it
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
 }
@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -36,6 +37,12 @@ public class AuthController {
         return ResponseEntity.ok(authService.forgetPassword(resetPasswordRequest.getEmail()));
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<Response<?>> logout(@RequestHeader(value = "Authorization", required = false) String authorization){
+        String token = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        return ResponseEntity.ok(authService.logout(token));
+    }
+
     @PostMapping("/reset-password")
     public ResponseEntity<Response<?>> resetPassword(@RequestBody ResetPasswordRequest resetPasswordRequest ){
         return ResponseEntity.ok(authService.updatePasswordViaResetCode(resetPasswordRequest));
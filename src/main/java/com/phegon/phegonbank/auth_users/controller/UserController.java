@@ -26,6 +26,13 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsers(page, size));
     }
 
+    // deactivating also revokes the user's tokens, see TokenEpochs
+    @PutMapping("/{userId}/active")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response<?>> setUserActive(@PathVariable Long userId, @RequestParam boolean active) {
+        return ResponseEntity.ok(userService.setUserActive(userId, active));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<Response<UserDTO>> getCurrentUser() {
         return ResponseEntity.ok(userService.getMyProfile());
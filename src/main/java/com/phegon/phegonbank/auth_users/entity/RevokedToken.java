@@ -0,0 +1,30 @@
+package com.phegon.phegonbank.auth_users.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// a token id revoked before its expiry; the row is deleted once the token would have expired anyway
+@Entity
+@Data
+@Builder
+@Table(name = "revoked_tokens")
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevokedToken {
+    @Id
+    @Column(length = 64)
+    private String jti;
+
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+}
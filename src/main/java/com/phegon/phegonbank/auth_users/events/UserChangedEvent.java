@@ -0,0 +1,9 @@
+package com.phegon.phegonbank.auth_users.events;
+
+// published when a user's authentication data (password, roles, profile) changes; email null means every user
+public record UserChangedEvent(String email) {
+
+    public static UserChangedEvent allUsers() {
+        return new UserChangedEvent(null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.phegon.phegonbank.auth_users.mappers;
+
+import com.phegon.phegonbank.auth_users.dtos.UserDTO;
+import com.phegon.phegonbank.auth_users.entity.User;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+// implementation is generated at compile time; accounts (and their transactions) are left out of user lists
+@Mapper(componentModel = "spring")
+public interface UserMapper {
+
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "accounts", ignore = true)
+    UserDTO toDto(User user);
+}
@@ -0,0 +1,27 @@
+package com.phegon.phegonbank.auth_users.repo;
+
+import com.phegon.phegonbank.auth_users.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepo extends JpaRepository<RevokedToken, String> {
+
+    // startup load: every revocation that can still matter
+    @Query("select r.jti from RevokedToken r where r.expiresAt > :now")
+    List<String> findLiveJtis(@Param("now") LocalDateTime now);
+
+    // revocations written since the last sync, by this or another instance
+    @Query("select r.jti from RevokedToken r where r.revokedAt > :since")
+    List<String> findJtisRevokedAfter(@Param("since") LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
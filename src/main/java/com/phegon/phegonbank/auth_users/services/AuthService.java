@@ -11,4 +11,5 @@ public interface AuthService {
     Response<LoginResponse> login(LoginRequest loginRequest);
     Response<?> forgetPassword(String email);
     Response<?> updatePasswordViaResetCode(ResetPasswordRequest resetPassWordRequest);
+    Response<?> logout(String token);
 }
@@ -9,9 +9,11 @@ import org.springframework.web.multipart.MultipartFile;
 
 public interface UserService {
     User getCurrentLoggedUser();
+    Long getCurrentUserId();
     Response<UserDTO> getMyProfile();
     Response<Page<UserDTO>> getAllUsers(int page, int size);
     Response<?> updatePassword(UpdatePasswordRequest updatePasswordRequest);
+    Response<?> setUserActive(Long userId, boolean active);
     Response<?> uploadProfilePicture(MultipartFile file);
     Response<?> uploadProfilePictureToS3(MultipartFile file);
 
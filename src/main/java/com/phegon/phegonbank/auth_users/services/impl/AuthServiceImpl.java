@@ -8,6 +8,7 @@ import com.phegon.phegonbank.auth_users.dtos.RegistrationRequest;
 import com.phegon.phegonbank.auth_users.dtos.ResetPasswordRequest;
 import com.phegon.phegonbank.auth_users.entity.PassWordResetCode;
 import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.auth_users.events.UserChangedEvent;
 import com.phegon.phegonbank.auth_users.repo.PassWordResetCodeRepo;
 import com.phegon.phegonbank.auth_users.repo.UserRepo;
 import com.phegon.phegonbank.auth_users.services.AuthService;
@@ -21,13 +22,19 @@ import com.phegon.phegonbank.notification.services.NotificationService;
 import com.phegon.phegonbank.res.Response;
 import com.phegon.phegonbank.role.entity.Role;
 import com.phegon.phegonbank.role.repo.RoleRepo;
+import com.phegon.phegonbank.security.PasswordHasher;
+import com.phegon.phegonbank.security.TokenEpochs;
+import com.phegon.phegonbank.security.TokenPrincipal;
+import com.phegon.phegonbank.security.TokenRevocations;
 import com.phegon.phegonbank.security.TokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -44,8 +51,11 @@ public class AuthServiceImpl implements AuthService {
 
     private final UserRepo userRepo;
     private final RoleRepo roleRepo;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final TokenService tokenService;
+    private final TokenEpochs tokenEpochs;
+    private final TokenRevocations tokenRevocations;
+    private final ApplicationEventPublisher eventPublisher;
     private final NotificationService notificationService;
     private final AccountService accountService;
 
@@ -82,7 +92,7 @@ public class AuthServiceImpl implements AuthService {
                 .lastName(request.getLastName())
                 .email(request.getEmail())
                 .phoneNumber(request.getPhoneNumber())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHasher.encode(request.getPassword()))
                 .roles(roles)
                 .active(true)
                 .build();
@@ -136,11 +146,24 @@ public class AuthServiceImpl implements AuthService {
 
         User user = userRepo.findByEmail(email).orElseThrow(()->new NotFoundException("Email Not Found"));
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        String storedHash = user.getPassword();
+        if (!passwordHasher.matches(password, storedHash)) {
             throw new BadRequestException("Password Do Not Match");
         }
+        // checked after the password so the response does not reveal which accounts are disabled
+        if (!user.isActive()) {
+            throw new BadRequestException("Account is disabled");
+        }
+        if (passwordHasher.needsRehash(storedHash)) {
+            Long userId = user.getId();
+            passwordHasher.rehashLater(password, newHash -> {
+                if (userRepo.replacePasswordHash(userId, storedHash, newHash) > 0) {
+                    eventPublisher.publishEvent(new UserChangedEvent(email)); // cached snapshot holds the old hash
+                }
+            });
+        }
 
-        String token = tokenService.generateToken(user.getEmail());
+        String token = tokenService.generateToken(user);
         LoginResponse loginResponse = LoginResponse.builder()
                 .roles(user.getRoles().stream().map(Role::getName).toList())
                 .token(token)
@@ -208,8 +231,10 @@ public class AuthServiceImpl implements AuthService {
 
         // update password
         User user = resetCode.getUser();
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHasher.encode(newPassword));
         userRepo.save(user);
+        tokenEpochs.revokeUserTokens(user.getId());
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail())); // delivered after commit
 
         // delete the code after use
         passWordResetCodeRepo.delete(resetCode);
@@ -233,6 +258,30 @@ public class AuthServiceImpl implements AuthService {
                 .build();
     }
 
+    // revokes the presented token only; other sessions of the user stay logged in
+    @Override
+    public Response<?> logout(String token) {
+        if (token == null) {
+            throw new BadRequestException("Token Required");
+        }
+        Claims claims;
+        try {
+            claims = tokenService.verify(token);
+        } catch (JwtException e) {
+            throw new BadRequestException("Invalid Token");
+        }
+        if (claims.getId() == null) {
+            throw new BadRequestException("Token cannot be revoked, it expires on its own");
+        }
+        TokenPrincipal principal = tokenService.principalOf(claims);
+        tokenRevocations.revoke(claims.getId(), principal == null ? null : principal.getUserId(), claims.getExpiration());
+
+        return Response.builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Logged out successfully")
+                .build();
+    }
+
     private LocalDateTime calculateExpiryDate() {
         return LocalDateTime.now().plusHours(5);
     }
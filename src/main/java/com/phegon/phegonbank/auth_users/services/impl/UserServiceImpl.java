@@ -1,9 +1,12 @@
 package com.phegon.phegonbank.auth_users.services.impl;
 
 import com.phegon.phegonbank.account.dtos.AccountDTO;
+import com.phegon.phegonbank.account.sharding.ShardedBalanceManager;
 import com.phegon.phegonbank.auth_users.dtos.UpdatePasswordRequest;
 import com.phegon.phegonbank.auth_users.dtos.UserDTO;
 import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.auth_users.events.UserChangedEvent;
+import com.phegon.phegonbank.auth_users.mappers.UserMapper;
 import com.phegon.phegonbank.auth_users.repo.UserRepo;
 import com.phegon.phegonbank.auth_users.services.UserService;
 import com.phegon.phegonbank.aws.S3Service;
@@ -12,17 +15,19 @@ import com.phegon.phegonbank.exceptions.NotFoundException;
 import com.phegon.phegonbank.notification.dtos.NotificationDTO;
 import com.phegon.phegonbank.notification.services.NotificationService;
 import com.phegon.phegonbank.res.Response;
+import com.phegon.phegonbank.security.PasswordHasher;
+import com.phegon.phegonbank.security.TokenEpochs;
+import com.phegon.phegonbank.security.TokenPrincipal;
 import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -43,9 +48,12 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
     private final UserRepo userRepo;
     private final NotificationService notificationService;
-    private final PasswordEncoder passwordEncoder;
-    private final ModelMapper modelMapper;
+    private final PasswordHasher passwordHasher;
+    private final UserMapper userMapper;
     private final S3Service s3Service;
+    private final TokenEpochs tokenEpochs;
+    private final ShardedBalanceManager shardedBalanceManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     // will save img to backend root folder
     // private final String uploadDir = "uploads/profile-pictures/";
@@ -53,12 +61,12 @@ public class UserServiceImpl implements UserService {
     // will save img to front-end public folder for easy frontend access
     private final String uploadDir = "/Users/miaoyiyuan/Desktop/试验田/phegon-bank-react/profile-picture";
 
+    // loads the entity, use getCurrentUserId() when the id is all that is needed
     @Override
     public User getCurrentLoggedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new AuthenticationServiceException("Authentication is required");
+        Authentication authentication = currentAuthentication();
+        if (authentication.getPrincipal() instanceof TokenPrincipal principal) {
+            return userRepo.findById(principal.getUserId()).orElseThrow(() -> new NotFoundException("user not found"));
         }
         String email = authentication.getName();
 
@@ -66,6 +74,25 @@ public class UserServiceImpl implements UserService {
 
     }
 
+    // straight from the token claims, no query
+    @Override
+    public Long getCurrentUserId() {
+        Authentication authentication = currentAuthentication();
+        if (authentication.getPrincipal() instanceof TokenPrincipal principal) {
+            return principal.getUserId();
+        }
+        return getCurrentLoggedUser().getId();
+    }
+
+    private Authentication currentAuthentication() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new AuthenticationServiceException("Authentication is required");
+        }
+        return authentication;
+    }
+
     @Override
     public Response<UserDTO> getMyProfile() {
         User user = getCurrentLoggedUser();
@@ -81,7 +108,7 @@ public class UserServiceImpl implements UserService {
                  .accounts(user.getAccounts().stream().map(account -> {
                       return AccountDTO.builder()
                       .id(account.getId())
-                      .balance(account.getBalance())
+                      .balance(shardedBalanceManager.balanceOf(account))
                       .accountStatus(account.getAccountStatus())
                       .accountNumber(account.getAccountNumber())
                       .createdAt(account.getCreatedAt())
@@ -109,7 +136,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public Response<Page<UserDTO>> getAllUsers(int page, int size) {
         Page<User> users = userRepo.findAll(PageRequest.of(page, size));
-        Page<UserDTO> userDTOS = users.map(user -> modelMapper.map(user, UserDTO.class));
+        Page<UserDTO> userDTOS = users.map(userMapper::toDto);
 
         return Response.<Page<UserDTO>>builder()
                 .statusCode(HttpStatus.OK.value())
@@ -129,13 +156,15 @@ public class UserServiceImpl implements UserService {
             throw new BadRequestException("Old Password or New Password Required");
         }
 
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHasher.matches(oldPassword, user.getPassword())) {
             throw new BadRequestException("Old Password is Incorrect");
         }
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHasher.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepo.save(user);
+        tokenEpochs.revokeUserTokens(user.getId()); // tokens issued with the old password stop working
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
 
         Map<String, Object> templateVariables = new HashMap<>();
         templateVariables.put("name", user.getFirstName());
@@ -152,6 +181,23 @@ public class UserServiceImpl implements UserService {
                 .statusCode(HttpStatus.OK.value()).message("Password Changed Successfully").build();
     }
 
+    @Override
+    public Response<?> setUserActive(Long userId, boolean active) {
+        User user = userRepo.findById(userId).orElseThrow(() -> new NotFoundException("user not found"));
+        user.setActive(active);
+        user.setUpdatedAt(LocalDateTime.now());
+        userRepo.save(user);
+        if (!active) {
+            tokenEpochs.revokeUserTokens(user.getId()); // claims-mode tokens do not carry the active flag
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
+
+        return Response.builder()
+                .statusCode(HttpStatus.OK.value())
+                .message(active ? "User activated" : "User deactivated")
+                .build();
+    }
+
     @Override
     public Response<?> uploadProfilePicture(MultipartFile file) {
         User user = getCurrentLoggedUser();
@@ -184,6 +230,7 @@ public class UserServiceImpl implements UserService {
 
             user.setProfilePictureUrl(fileUrl);
             userRepo.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
 
             return Response.builder()
                     .statusCode(HttpStatus.OK.value())
@@ -208,6 +255,7 @@ public class UserServiceImpl implements UserService {
             String s3Url = s3Service.uploadFile(file, "profile-pictures");
             user.setProfilePictureUrl(s3Url);
             userRepo.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
 
             return Response.builder()
                     .statusCode(HttpStatus.OK.value())
@@ -1,9 +1,9 @@
 package com.phegon.phegonbank.config;
 
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
@@ -11,27 +11,26 @@ import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 @Configuration
 public class AppConfig {
     @Bean // a global object existing throughout app
-    public SpringTemplateEngine templateEngine() {
+    public SpringTemplateEngine templateEngine(@Value("${bank.notifications.templates.cache-size:200}") int cacheSize,
+                                               @Value("${bank.notifications.templates.cache-ttl-ms:86400000}") long cacheTtlMillis) {
         SpringTemplateEngine templateEngine = new SpringTemplateEngine();
 
         ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
         templateResolver.setPrefix("templates/");
         templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
         templateResolver.setCharacterEncoding("UTF-8");
+        // parsed templates are kept and reused until the TTL passes, then re-read from the classpath
+        templateResolver.setCacheable(true);
+        templateResolver.setCacheTTLMs(cacheTtlMillis);
+
+        // bounds for the parsed template cache and the parsed expression cache behind it
+        StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxSize(cacheSize);
+        cacheManager.setExpressionCacheMaxSize(cacheSize * 50);
 
         templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setCacheManager(cacheManager);
         return templateEngine;
     }
-
-    @Bean
-    public ModelMapper modelMapperConfig() {
-        ModelMapper modelMapper = new ModelMapper();
-        modelMapper.getConfiguration()
-                .setFieldMatchingEnabled(true) // convert class A to class B
-                .setFieldAccessLevel(org.modelmapper.config.Configuration.AccessLevel.PRIVATE) //even it's private, convert
-                .setMatchingStrategy(MatchingStrategies.STANDARD);
-
-        return modelMapper;
-
-    }
 }
@@ -0,0 +1,5 @@
+package com.phegon.phegonbank.enums;
+
+public enum NotificationOverflowPolicy {
+    DROP_OLDEST, CALLER_RUNS, SPILL_TO_DB
+}
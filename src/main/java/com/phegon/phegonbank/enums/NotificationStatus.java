@@ -0,0 +1,5 @@
+package com.phegon.phegonbank.enums;
+
+public enum NotificationStatus {
+    SENT, FAILED
+}
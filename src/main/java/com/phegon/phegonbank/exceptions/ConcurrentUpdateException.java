@@ -0,0 +1,7 @@
+package com.phegon.phegonbank.exceptions;
+
+public class ConcurrentUpdateException extends RuntimeException {
+    public ConcurrentUpdateException(String error) {
+        super(error);
+    }
+}
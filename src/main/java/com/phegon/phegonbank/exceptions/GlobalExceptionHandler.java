@@ -1,10 +1,17 @@
 package com.phegon.phegonbank.exceptions;
 
 import com.phegon.phegonbank.res.Response;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 // 这是一个“切面”类，专门监听所有 Controller 的异常
 @ControllerAdvice
@@ -81,4 +88,41 @@ public class GlobalExceptionHandler {
         // 7. 返回 404 状态码
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler({ConcurrentUpdateException.class, ConcurrencyFailureException.class})
+    public ResponseEntity<Response<?>> handleConcurrentUpdate(RuntimeException ex) {
+
+        Response<?> response = Response.builder()
+                .statusCode(HttpStatus.CONFLICT.value()) // 409, client may retry
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    // @Valid request bodies: MethodArgumentNotValidException for a single object, HandlerMethodValidationException for a list
+    @ExceptionHandler({MethodArgumentNotValidException.class, HandlerMethodValidationException.class})
+    public ResponseEntity<Response<?>> handleValidation(Exception ex) {
+        List<? extends MessageSourceResolvable> errors = ex instanceof MethodArgumentNotValidException invalid
+                ? invalid.getAllErrors()
+                : ((HandlerMethodValidationException) ex).getAllErrors();
+
+        Response<?> response = Response.builder()
+                .statusCode(HttpStatus.BAD_REQUEST.value()) // 400
+                .message(errors.stream().map(MessageSourceResolvable::getDefaultMessage).collect(Collectors.joining("; ")))
+                .build();
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Response<?>> handleServiceBusy(ServiceBusyException ex) {
+
+        Response<?> response = Response.builder()
+                .statusCode(HttpStatus.SERVICE_UNAVAILABLE.value()) // 503, overloaded or halted, retry later
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
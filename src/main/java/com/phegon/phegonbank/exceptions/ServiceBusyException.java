@@ -0,0 +1,7 @@
+package com.phegon.phegonbank.exceptions;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String error) {
+        super(error);
+    }
+}
@@ -0,0 +1,39 @@
+package com.phegon.phegonbank.ledger.controller;
+
+import com.phegon.phegonbank.ledger.dtos.BalanceMismatchDTO;
+import com.phegon.phegonbank.ledger.services.LedgerService;
+import com.phegon.phegonbank.res.Response;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/ledger")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ADMIN')")
+public class LedgerController {
+    private final LedgerService ledgerService;
+
+    @GetMapping("/verify")
+    public ResponseEntity<Response<List<BalanceMismatchDTO>>> verifyBalances() {
+        return ResponseEntity.ok(ledgerService.verifyBalances());
+    }
+
+    // run once after deploying the journal, before verify means anything
+    @PostMapping("/opening-balances")
+    public ResponseEntity<Response<?>> openBalances() {
+        return ResponseEntity.ok(ledgerService.openBalances());
+    }
+
+    // overwrites accounts.balance from the journal, drain transaction traffic first
+    @PostMapping("/rebuild")
+    public ResponseEntity<Response<?>> rebuildBalances() {
+        return ResponseEntity.ok(ledgerService.rebuildBalances());
+    }
+}
@@ -0,0 +1,18 @@
+package com.phegon.phegonbank.ledger.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceMismatchDTO {
+    private String accountNumber;
+    private BigDecimal balance; // what accounts.balance says
+    private BigDecimal journalBalance; // credits minus debits in the journal
+}
@@ -0,0 +1,51 @@
+package com.phegon.phegonbank.ledger.entity;
+
+import com.phegon.phegonbank.enums.EntryDirection;
+import com.phegon.phegonbank.enums.TransactionType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// one leg of a double-entry posting; rows are only ever inserted, never updated or deleted
+@Entity
+@Immutable
+@Data
+@Builder
+@Table(name = "journal_entries", indexes = {
+        @Index(name = "idx_journal_account", columnList = "account_number, id"),
+        @Index(name = "idx_journal_reference", columnList = "reference")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournalEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // shared by the debit and credit leg of the same posting
+    @Column(nullable = false, length = 36)
+    private String reference;
+
+    @Column(nullable = false, length = 15)
+    private String accountNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 6)
+    private EntryDirection direction;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private TransactionType transactionType; // null for opening balances
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,17 @@
+package com.phegon.phegonbank.ledger.repo;
+
+import com.phegon.phegonbank.ledger.dtos.BalanceMismatchDTO;
+import com.phegon.phegonbank.ledger.entity.JournalEntry;
+
+import java.util.List;
+
+public interface JournalEntryJdbcRepo {
+    // multi-row INSERT ... VALUES (...), (...) for all legs
+    void insertAll(List<JournalEntry> entries);
+
+    List<BalanceMismatchDTO> findBalanceMismatches();
+
+    int rebuildBalances();
+
+    int insertOpeningBalances(String equityAccountNumber);
+}
@@ -0,0 +1,94 @@
+package com.phegon.phegonbank.ledger.repo;
+
+import com.phegon.phegonbank.ledger.dtos.BalanceMismatchDTO;
+import com.phegon.phegonbank.ledger.entity.JournalEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JournalEntryJdbcRepoImpl implements JournalEntryJdbcRepo {
+
+    private static final int MAX_ROWS_PER_INSERT = 500;
+
+    private static final String INSERT_PREFIX = "insert into journal_entries " +
+            "(reference, account_number, direction, amount, transaction_type, created_at) values ";
+
+    // credits minus debits per account
+    private static final String JOURNAL_TOTALS = "select account_number, " +
+            "sum(case when direction = 'CREDIT' then amount else -amount end) as total " +
+            "from journal_entries group by account_number";
+
+    private static final String SLOT_TOTALS = "select account_id, sum(balance) as total " +
+            "from account_balance_slots group by account_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<JournalEntry> entries) {
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_INSERT) {
+            List<JournalEntry> chunk = entries.subList(from, Math.min(entries.size(), from + MAX_ROWS_PER_INSERT));
+
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+            List<Object> args = new ArrayList<>(chunk.size() * 6);
+            for (int i = 0; i < chunk.size(); i++) {
+                JournalEntry entry = chunk.get(i);
+                sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+                args.add(entry.getReference());
+                args.add(entry.getAccountNumber());
+                args.add(entry.getDirection().name());
+                args.add(entry.getAmount());
+                args.add(entry.getTransactionType() == null ? null : entry.getTransactionType().name());
+                args.add(Timestamp.valueOf(entry.getCreatedAt()));
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    @Override
+    public List<BalanceMismatchDTO> findBalanceMismatches() {
+        // a sharded account's balance is the main column plus its unfolded slots
+        String sql = "select a.account_number, a.balance + coalesce(s.total, 0) as balance, " +
+                "coalesce(j.total, 0) as journal_balance " +
+                "from accounts a left join (" + JOURNAL_TOTALS + ") j on j.account_number = a.account_number " +
+                "left join (" + SLOT_TOTALS + ") s on s.account_id = a.id " +
+                "where a.balance + coalesce(s.total, 0) <> coalesce(j.total, 0)";
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> BalanceMismatchDTO.builder()
+                .accountNumber(rs.getString("account_number"))
+                .balance(rs.getBigDecimal("balance"))
+                .journalBalance(rs.getBigDecimal("journal_balance"))
+                .build());
+    }
+
+    @Override
+    public int rebuildBalances() {
+        // the journal already covers slot credits, so the slots start again from zero
+        jdbcTemplate.update("update account_balance_slots set balance = 0");
+        // version is bumped so optimistic writers holding an old read retry
+        return jdbcTemplate.update("update accounts a set " +
+                "a.balance = (select coalesce(sum(case when j.direction = 'CREDIT' then j.amount else -j.amount end), 0) " +
+                "from journal_entries j where j.account_number = a.account_number), " +
+                "a.version = a.version + 1");
+    }
+
+    @Override
+    public int insertOpeningBalances(String equityAccountNumber) {
+        // accounts that predate the journal get one posting equal to their current balance;
+        // the equity legs go first because the credit legs make the NOT EXISTS false
+        String missing = "from accounts a where a.balance <> 0 and not exists " +
+                "(select 1 from journal_entries j where j.account_number = a.account_number)";
+
+        jdbcTemplate.update("insert into journal_entries " +
+                "(reference, account_number, direction, amount, transaction_type, created_at) " +
+                "select concat('OPEN-', a.account_number), ?, 'DEBIT', a.balance, null, current_timestamp " + missing,
+                equityAccountNumber);
+
+        return jdbcTemplate.update("insert into journal_entries " +
+                "(reference, account_number, direction, amount, transaction_type, created_at) " +
+                "select concat('OPEN-', a.account_number), a.account_number, 'CREDIT', a.balance, null, current_timestamp " + missing);
+    }
+}
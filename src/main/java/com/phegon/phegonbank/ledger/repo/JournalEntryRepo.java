@@ -0,0 +1,10 @@
+package com.phegon.phegonbank.ledger.repo;
+
+import com.phegon.phegonbank.ledger.entity.JournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface JournalEntryRepo extends JpaRepository<JournalEntry, Long>, JournalEntryJdbcRepo {
+    List<JournalEntry> findByReference(String reference);
+}
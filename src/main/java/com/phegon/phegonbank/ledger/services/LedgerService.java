@@ -0,0 +1,16 @@
+package com.phegon.phegonbank.ledger.services;
+
+import com.phegon.phegonbank.ledger.dtos.BalanceMismatchDTO;
+import com.phegon.phegonbank.res.Response;
+import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
+
+import java.util.List;
+
+public interface LedgerService {
+    // appends the debit and credit legs of every request; must run inside the balance update's transaction
+    void post(List<TransactionRequest> transactionRequests);
+
+    Response<List<BalanceMismatchDTO>> verifyBalances();
+    Response<?> rebuildBalances();
+    Response<?> openBalances();
+}
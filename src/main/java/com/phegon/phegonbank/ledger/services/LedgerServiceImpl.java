@@ -0,0 +1,117 @@
+package com.phegon.phegonbank.ledger.services;
+
+import com.phegon.phegonbank.enums.EntryDirection;
+import com.phegon.phegonbank.exceptions.InvalidTransactionException;
+import com.phegon.phegonbank.ledger.dtos.BalanceMismatchDTO;
+import com.phegon.phegonbank.ledger.entity.JournalEntry;
+import com.phegon.phegonbank.ledger.repo.JournalEntryRepo;
+import com.phegon.phegonbank.res.Response;
+import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerServiceImpl implements LedgerService {
+
+    // bank-side accounts, customer account numbers always start with 66 so these never clash
+    public static final String CASH_ACCOUNT = "CASH";
+    public static final String EQUITY_ACCOUNT = "EQUITY";
+
+    private final JournalEntryRepo journalEntryRepo;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void post(List<TransactionRequest> transactionRequests) {
+        LocalDateTime now = LocalDateTime.now();
+        List<JournalEntry> entries = new ArrayList<>(transactionRequests.size() * 2);
+
+        for (TransactionRequest request : transactionRequests) {
+            String reference = UUID.randomUUID().toString();
+            BigDecimal amount = request.getAmount();
+
+            // DEPOSIT: cash in, customer credited; WITHDRAW: the reverse; TRANSFER: customer to customer
+            String debitAccount;
+            String creditAccount;
+            switch (request.getTransactionType()) {
+                case DEPOSIT -> {
+                    debitAccount = CASH_ACCOUNT;
+                    creditAccount = request.getAccountNumber();
+                }
+                case WITHDRAW -> {
+                    debitAccount = request.getAccountNumber();
+                    creditAccount = CASH_ACCOUNT;
+                }
+                case TRANSFER -> {
+                    debitAccount = request.getAccountNumber();
+                    creditAccount = request.getDestinationAccountNumber();
+                }
+                default -> throw new InvalidTransactionException("Invalid transaction type");
+            }
+
+            entries.add(leg(reference, debitAccount, EntryDirection.DEBIT, amount, request, now));
+            entries.add(leg(reference, creditAccount, EntryDirection.CREDIT, amount, request, now));
+        }
+
+        journalEntryRepo.insertAll(entries);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Response<List<BalanceMismatchDTO>> verifyBalances() {
+        List<BalanceMismatchDTO> mismatches = journalEntryRepo.findBalanceMismatches();
+
+        return Response.<List<BalanceMismatchDTO>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message(mismatches.isEmpty() ? "All balances match the journal" : mismatches.size() + " balances differ from the journal")
+                .data(mismatches)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Response<?> rebuildBalances() {
+        int updated = journalEntryRepo.rebuildBalances();
+        log.info("Rebuilt {} account balances from the journal", updated);
+
+        return Response.builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Rebuilt " + updated + " account balances from the journal")
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Response<?> openBalances() {
+        int opened = journalEntryRepo.insertOpeningBalances(EQUITY_ACCOUNT);
+        log.info("Posted opening balances for {} accounts", opened);
+
+        return Response.builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Posted opening balances for " + opened + " accounts")
+                .build();
+    }
+
+    private JournalEntry leg(String reference, String accountNumber, EntryDirection direction,
+                             BigDecimal amount, TransactionRequest request, LocalDateTime now) {
+        return JournalEntry.builder()
+                .reference(reference)
+                .accountNumber(accountNumber)
+                .direction(direction)
+                .amount(amount)
+                .transactionType(request.getTransactionType())
+                .createdAt(now)
+                .build();
+    }
+}
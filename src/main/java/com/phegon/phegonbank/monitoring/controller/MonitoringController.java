@@ -0,0 +1,53 @@
+package com.phegon.phegonbank.monitoring.controller;
+
+import com.phegon.phegonbank.exceptions.NotFoundException;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import com.phegon.phegonbank.res.Response;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/monitoring")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ADMIN')")
+public class MonitoringController {
+    private final List<MetricsSource> metricsSources;
+
+    @GetMapping
+    public ResponseEntity<Response<Map<String, Object>>> getAllMetrics() {
+        Map<String, Object> metrics = new TreeMap<>();
+        for (MetricsSource source : metricsSources) {
+            metrics.put(source.getName(), source.snapshot());
+        }
+
+        return ResponseEntity.ok(Response.<Map<String, Object>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Metrics retrieved")
+                .data(metrics)
+                .build());
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<Response<Map<String, Object>>> getMetrics(@PathVariable String name) {
+        MetricsSource source = metricsSources.stream()
+                .filter(s -> s.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("No metrics named " + name));
+
+        return ResponseEntity.ok(Response.<Map<String, Object>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Metrics retrieved")
+                .data(source.snapshot())
+                .build());
+    }
+}
@@ -0,0 +1,9 @@
+package com.phegon.phegonbank.monitoring.services;
+
+import java.util.Map;
+
+// any component that wants its counters visible under /api/monitoring implements this
+public interface MetricsSource {
+    String getName();
+    Map<String, Object> snapshot();
+}
@@ -0,0 +1,241 @@
+package com.phegon.phegonbank.notification.digest;
+
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import com.phegon.phegonbank.notification.dtos.NotificationDTO;
+import com.phegon.phegonbank.notification.executor.NotificationExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the credit and debit alerts of each recipient for bank.notifications.digest.window-ms
+ * and sends them as one transaction-digest email. A window that saw a single alert sends that
+ * alert unchanged. Only the templates in bank.notifications.digest.templates are buffered;
+ * everything else, password and account emails included, goes straight to the executor.
+ * Memory is bounded: at most max-recipients open windows (alerts for further recipients are sent
+ * individually) and max-entries per window (a full window is sent early). Open windows are sent
+ * on shutdown, before the executor stops.
+ */
+@Component
+@Slf4j
+public class NotificationCoalescer implements MetricsSource {
+
+    private static final String DIGEST_TEMPLATE = "transaction-digest";
+    private static final String CREDIT_TEMPLATE = "credit-alert";
+
+    private final NotificationExecutor notificationExecutor;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final long windowMillis;
+    private final int maxRecipients;
+    private final int maxEntries;
+    private final Set<String> templates;
+
+    private final Map<String, PendingDigest> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedAlerts = new AtomicInteger();
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final LongAdder buffered = new LongAdder();
+    private final LongAdder bypassedFull = new LongAdder();
+    private final LongAdder digestsSent = new LongAdder();
+    private final LongAdder singlesSent = new LongAdder();
+    private final LongAdder earlyFlushes = new LongAdder();
+
+    public NotificationCoalescer(NotificationExecutor notificationExecutor,
+                                 @Value("${bank.notifications.digest.enabled:true}") boolean enabled,
+                                 @Value("${bank.notifications.digest.window-ms:60000}") long windowMillis,
+                                 @Value("${bank.notifications.digest.max-recipients:10000}") int maxRecipients,
+                                 @Value("${bank.notifications.digest.max-entries:100}") int maxEntries,
+                                 @Value("${bank.notifications.digest.templates:credit-alert,debit-alert}") Set<String> templates) {
+        this.notificationExecutor = notificationExecutor;
+        this.enabled = enabled;
+        this.windowMillis = Math.max(1, windowMillis);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(this.windowMillis);
+        this.maxRecipients = Math.max(1, maxRecipients);
+        this.maxEntries = Math.max(2, maxEntries);
+        this.templates = Set.copyOf(templates);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().name("notification-digest").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        flush(true);
+    }
+
+    /**
+     * Buffers the email if it is a coalescible alert. Returns false when the caller has to send it
+     * itself: digests disabled, not an alert template, or the buffer is full.
+     */
+    public boolean offer(NotificationDTO notification, User user) {
+        if (!running || notification.getTemplateName() == null || !templates.contains(notification.getTemplateName())) {
+            return false;
+        }
+        String recipient = notification.getRecipient();
+        if (pending.size() >= maxRecipients && !pending.containsKey(recipient)) {
+            bypassedFull.increment();
+            return false;
+        }
+
+        PendingDigest[] full = new PendingDigest[1];
+        pending.compute(recipient, (key, digest) -> {
+            if (digest == null) {
+                digest = new PendingDigest(user, System.nanoTime());
+            }
+            digest.notifications.add(notification);
+            if (digest.notifications.size() >= maxEntries) {
+                full[0] = digest;
+                return null;
+            }
+            return digest;
+        });
+        buffered.increment();
+        bufferedAlerts.incrementAndGet();
+
+        if (full[0] != null) {
+            earlyFlushes.increment();
+            send(full[0]);
+        }
+        return true;
+    }
+
+    private void run() {
+        long tick = Math.max(50, Math.min(1000, windowMillis / 10));
+        while (running) {
+            try {
+                Thread.sleep(tick);
+                flush(false);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Flushing notification digests failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void flush(boolean all) {
+        long now = System.nanoTime();
+        for (String recipient : pending.keySet()) {
+            PendingDigest[] due = new PendingDigest[1];
+            pending.computeIfPresent(recipient, (key, digest) -> {
+                if (all || now - digest.openedAt >= windowNanos) {
+                    due[0] = digest;
+                    return null;
+                }
+                return digest;
+            });
+            if (due[0] != null) {
+                send(due[0]);
+            }
+        }
+    }
+
+    private void send(PendingDigest digest) {
+        List<NotificationDTO> notifications = digest.notifications;
+        bufferedAlerts.addAndGet(-notifications.size());
+        if (notifications.size() == 1) {
+            singlesSent.increment();
+            notificationExecutor.submit(notifications.get(0), digest.user);
+            return;
+        }
+
+        List<Map<String, Object>> entries = new ArrayList<>(notifications.size());
+        BigDecimal totalCredit = BigDecimal.ZERO;
+        BigDecimal totalDebit = BigDecimal.ZERO;
+        for (NotificationDTO notification : notifications) {
+            Map<String, Object> variables = notification.getTemplateVariables();
+            boolean credit = CREDIT_TEMPLATE.equals(notification.getTemplateName());
+            Object amount = variables.get("amount");
+            if (amount instanceof BigDecimal value) {
+                if (credit) {
+                    totalCredit = totalCredit.add(value);
+                } else {
+                    totalDebit = totalDebit.add(value);
+                }
+            }
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("type", credit ? "Credit" : "Debit");
+            entry.put("amount", amount);
+            entry.put("accountNumber", variables.get("accountNumber"));
+            entry.put("date", variables.get("date"));
+            entry.put("balance", variables.get("balance"));
+            entries.add(entry);
+        }
+
+        Map<String, Object> templateVariables = new LinkedHashMap<>();
+        templateVariables.put("name", notifications.get(0).getTemplateVariables().get("name"));
+        templateVariables.put("count", entries.size());
+        templateVariables.put("totalCredit", totalCredit);
+        templateVariables.put("totalDebit", totalDebit);
+        templateVariables.put("entries", entries);
+
+        NotificationDTO digestEmail = NotificationDTO.builder()
+                .recipient(notifications.get(0).getRecipient())
+                .subject("Account Activity: " + entries.size() + " transactions")
+                .templateName(DIGEST_TEMPLATE)
+                .templateVariables(templateVariables)
+                .build();
+        digestsSent.increment();
+        notificationExecutor.submit(digestEmail, digest.user);
+    }
+
+    @Override
+    public String getName() {
+        return "notification-digest";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("openWindows", pending.size());
+        stats.put("bufferedAlerts", bufferedAlerts.get());
+        stats.put("alertsBuffered", buffered.sum());
+        stats.put("digestsSent", digestsSent.sum());
+        stats.put("singlesSent", singlesSent.sum());
+        stats.put("earlyFlushes", earlyFlushes.sum());
+        stats.put("bypassedBufferFull", bypassedFull.sum());
+        return stats;
+    }
+
+    // only mutated inside pending.compute, which serializes access per recipient
+    private static final class PendingDigest {
+        private final User user;
+        private final long openedAt;
+        private final List<NotificationDTO> notifications = new ArrayList<>();
+
+        PendingDigest(User user, long openedAt) {
+            this.user = user;
+            this.openedAt = openedAt;
+        }
+    }
+}
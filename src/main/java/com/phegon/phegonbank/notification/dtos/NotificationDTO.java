@@ -1,8 +1,6 @@
 package com.phegon.phegonbank.notification.dtos;
 
-import com.phegon.phegonbank.auth_users.entity.User;
 import com.phegon.phegonbank.enums.NotificationType;
-import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,7 +12,6 @@ import java.util.Map;
 
 @Data
 @Builder
-@Table(name="users")
 @AllArgsConstructor
 @NoArgsConstructor
 public class NotificationDTO {
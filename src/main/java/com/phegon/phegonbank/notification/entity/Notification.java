@@ -2,6 +2,7 @@ package com.phegon.phegonbank.notification.entity;
 import java.time.LocalDateTime;
 
 import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.enums.NotificationStatus;
 import com.phegon.phegonbank.enums.NotificationType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -9,13 +10,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.ArrayList;
-import java.util.List;
-
+// a row of the notification log, inserted in batches by NotificationLogWriter
 @Entity
 @Data
 @Builder
-@Table(name="users")
+@Table(name="notification_log")
 @AllArgsConstructor
 @NoArgsConstructor
 public class Notification {
@@ -24,17 +23,33 @@ public class Notification {
     private Long id;
 
     private String subject;
+
+    @Column(nullable = false)
     private String recipient;
-    private String body;
+
+    @Column(columnDefinition = "TEXT")
+    private String body; // only for emails sent without a template
+
+    @Column(length = 100)
+    private String templateName;
 
     @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
     private NotificationType type; // email, sms, push
 
-    @ManyToOne
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private NotificationStatus status;
+
+    @Column(length = 500)
+    private String error;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    private final LocalDateTime createdAt = LocalDateTime.now();
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
 
 
 }
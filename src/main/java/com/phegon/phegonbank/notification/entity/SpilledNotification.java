@@ -0,0 +1,41 @@
+package com.phegon.phegonbank.notification.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// an email that overflowed the notification queue, waiting for room to be queued again
+@Entity
+@Data
+@Builder
+@Table(name = "notification_spill")
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpilledNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Column(length = 100)
+    private String templateName;
+
+    @Column(columnDefinition = "TEXT")
+    private String templateVariables;
+
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,346 @@
+package com.phegon.phegonbank.notification.executor;
+
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.enums.NotificationOverflowPolicy;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import com.phegon.phegonbank.notification.dtos.NotificationDTO;
+import com.phegon.phegonbank.notification.entity.SpilledNotification;
+import com.phegon.phegonbank.notification.repo.SpilledNotificationRepo;
+import com.phegon.phegonbank.notification.services.EmailDelivery;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs every email send on its own virtual thread, fed from a bounded queue by a single
+ * dispatcher thread. At most bank.notifications.executor.max-concurrent-sends sends run at once;
+ * the rest wait in the queue, and when the queue is full the overflow policy decides:
+ * DROP_OLDEST discards the longest waiting email, CALLER_RUNS sends on the submitting thread
+ * (backpressure) and SPILL_TO_DB parks the email in notification_spill, from where it is queued
+ * again as soon as there is room. A mail outage therefore costs at most queue-capacity emails of
+ * memory. Emails still queued at shutdown are spilled under SPILL_TO_DB and lost otherwise.
+ */
+@Component
+@Slf4j
+public class NotificationExecutor implements MetricsSource {
+
+    private static final TypeReference<Map<String, Object>> VARIABLES_TYPE = new TypeReference<>() {
+    };
+
+    private final EmailDelivery emailDelivery;
+    private final SpilledNotificationRepo spilledNotificationRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final NotificationOverflowPolicy overflowPolicy;
+    private final int queueCapacity;
+    private final int maxConcurrentSends;
+    private final long refillIntervalMillis;
+    private final long shutdownTimeoutMillis;
+
+    private final BlockingQueue<NotificationTask> queue;
+    private final Semaphore sendPermits;
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("notification-send-", 0).factory());
+    private Thread dispatcher;
+    private volatile boolean accepting;
+    private volatile boolean running;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder refilled = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    public NotificationExecutor(EmailDelivery emailDelivery,
+                                SpilledNotificationRepo spilledNotificationRepo,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${bank.notifications.executor.overflow-policy:SPILL_TO_DB}") NotificationOverflowPolicy overflowPolicy,
+                                @Value("${bank.notifications.executor.queue-capacity:10000}") int queueCapacity,
+                                @Value("${bank.notifications.executor.max-concurrent-sends:32}") int maxConcurrentSends,
+                                @Value("${bank.notifications.executor.refill-interval-ms:1000}") long refillIntervalMillis,
+                                @Value("${bank.notifications.executor.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        this.emailDelivery = emailDelivery;
+        this.spilledNotificationRepo = spilledNotificationRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.overflowPolicy = overflowPolicy;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxConcurrentSends = Math.max(1, maxConcurrentSends);
+        this.refillIntervalMillis = Math.max(1, refillIntervalMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(this.queueCapacity);
+        this.sendPermits = new Semaphore(this.maxConcurrentSends);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        accepting = true;
+        dispatcher = Thread.ofPlatform().name("notification-dispatcher").daemon().start(this::dispatch);
+    }
+
+    public void submit(NotificationDTO notification, User user) {
+        NotificationTask task = new NotificationTask(notification, user, System.nanoTime());
+        submitted.increment();
+        if (!accepting) {
+            // shutting down, nothing will drain the queue any more
+            runOnCaller(task);
+            return;
+        }
+        if (queue.offer(task)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                while (!queue.offer(task)) {
+                    NotificationTask oldest = queue.poll();
+                    if (oldest != null) {
+                        dropped.increment();
+                        log.warn("Notification queue full, dropped email to {} ({})",
+                                oldest.notification().getRecipient(), oldest.notification().getSubject());
+                    }
+                }
+            }
+            case CALLER_RUNS -> runOnCaller(task);
+            case SPILL_TO_DB -> {
+                try {
+                    spill(List.of(task));
+                } catch (RuntimeException e) {
+                    log.error("Could not spill email to {}, sending on the caller thread: {}",
+                            task.notification().getRecipient(), e.getMessage());
+                    runOnCaller(task);
+                }
+            }
+        }
+    }
+
+    private void runOnCaller(NotificationTask task) {
+        callerRuns.increment();
+        inFlight.incrementAndGet();
+        try {
+            deliver(task);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void dispatch() {
+        long nextRefill = System.nanoTime();
+        while (running) {
+            try {
+                if (System.nanoTime() >= nextRefill) {
+                    refill();
+                    nextRefill = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(refillIntervalMillis);
+                }
+                NotificationTask task = queue.poll(refillIntervalMillis, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    continue;
+                }
+                sendPermits.acquire();
+                inFlight.incrementAndGet();
+                senders.execute(() -> {
+                    try {
+                        deliver(task);
+                    } finally {
+                        inFlight.decrementAndGet();
+                        sendPermits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Notification dispatcher error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void deliver(NotificationTask task) {
+        long start = System.nanoTime();
+        queueWaitNanos.add(start - task.submittedAt());
+        try {
+            emailDelivery.deliver(task.notification(), task.user());
+            sent.increment();
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Sending email to {} failed: {}", task.notification().getRecipient(), e.getMessage());
+        } finally {
+            long nanos = System.nanoTime() - start;
+            sendNanos.add(nanos);
+            maxSendNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    // moves spilled emails back into the queue, oldest first, only while it is at most half full
+    private void refill() {
+        int room = queue.remainingCapacity() - queueCapacity / 2;
+        if (room <= 0) {
+            return;
+        }
+        // rows stay locked until the delete commits, other instances skip them
+        List<NotificationTask> tasks = transactionTemplate.execute(status -> {
+            List<SpilledNotification> rows = spilledNotificationRepo.findOldest(Limit.of(room));
+            List<NotificationTask> restored = new ArrayList<>(rows.size());
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (SpilledNotification row : rows) {
+                restored.add(restore(row));
+                ids.add(row.getId());
+            }
+            spilledNotificationRepo.deleteAllByIdInBatch(ids);
+            return restored;
+        });
+        if (tasks == null) {
+            return;
+        }
+        for (NotificationTask task : tasks) {
+            // submitters may have filled the queue in the meantime, whatever doesn't fit goes back to the table
+            if (queue.offer(task)) {
+                refilled.increment();
+            } else {
+                spill(List.of(task));
+            }
+        }
+    }
+
+    private void spill(List<NotificationTask> tasks) {
+        List<SpilledNotification> rows = new ArrayList<>(tasks.size());
+        for (NotificationTask task : tasks) {
+            NotificationDTO notification = task.notification();
+            rows.add(SpilledNotification.builder()
+                    .recipient(notification.getRecipient())
+                    .subject(notification.getSubject())
+                    .body(notification.getBody())
+                    .templateName(notification.getTemplateName())
+                    .templateVariables(writeVariables(notification.getTemplateVariables()))
+                    .userId(task.user() == null ? null : task.user().getId())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        spilledNotificationRepo.saveAll(rows);
+        spilled.add(rows.size());
+    }
+
+    // templates only print the variables, so their string form renders exactly like the originals;
+    // lists and maps (the digest's entries) keep their shape with strings at the leaves
+    private String writeVariables(Map<String, Object> variables) {
+        if (variables == null) {
+            return null;
+        }
+        return objectMapper.writeValueAsString(stringify(variables));
+    }
+
+    private static Object stringify(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> strings = new LinkedHashMap<>();
+            map.forEach((name, nested) -> strings.put(String.valueOf(name), stringify(nested)));
+            return strings;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> strings = new ArrayList<>(collection.size());
+            collection.forEach(nested -> strings.add(stringify(nested)));
+            return strings;
+        }
+        return String.valueOf(value);
+    }
+
+    private NotificationTask restore(SpilledNotification row) {
+        Map<String, Object> variables = row.getTemplateVariables() == null ? null
+                : new LinkedHashMap<>(objectMapper.readValue(row.getTemplateVariables(), VARIABLES_TYPE));
+        NotificationDTO notification = NotificationDTO.builder()
+                .recipient(row.getRecipient())
+                .subject(row.getSubject())
+                .body(row.getBody())
+                .templateName(row.getTemplateName())
+                .templateVariables(variables)
+                .build();
+        User user = row.getUserId() == null ? null : User.builder().id(row.getUserId()).build();
+        return new NotificationTask(notification, user, System.nanoTime());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        accepting = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        while ((!queue.isEmpty() || inFlight.get() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(1000);
+
+        List<NotificationTask> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        if (!leftovers.isEmpty()) {
+            if (overflowPolicy == NotificationOverflowPolicy.SPILL_TO_DB) {
+                spill(leftovers);
+                log.info("Spilled {} queued emails at shutdown", leftovers.size());
+            } else {
+                dropped.add(leftovers.size());
+                log.warn("Shutting down with {} emails still queued, they are not sent", leftovers.size());
+            }
+        }
+        senders.shutdown();
+        senders.awaitTermination(Math.max(1, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String getName() {
+        return "notification-executor";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        long sends = sent.sum() + failed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("overflowPolicy", overflowPolicy.name());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queueDepth", queue.size());
+        stats.put("inFlight", inFlight.get());
+        stats.put("maxConcurrentSends", maxConcurrentSends);
+        stats.put("submitted", submitted.sum());
+        stats.put("sent", sent.sum());
+        stats.put("failed", failed.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("callerRuns", callerRuns.sum());
+        stats.put("spilled", spilled.sum());
+        stats.put("refilled", refilled.sum());
+        stats.put("spillPending", spilledNotificationRepo.count());
+        stats.put("avgSendMicros", sends == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sendNanos.sum() / sends));
+        stats.put("maxSendMicros", TimeUnit.NANOSECONDS.toMicros(maxSendNanos.get()));
+        stats.put("avgQueueWaitMicros", sends == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.sum() / sends));
+        return stats;
+    }
+}
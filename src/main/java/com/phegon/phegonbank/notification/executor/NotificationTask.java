@@ -0,0 +1,8 @@
+package com.phegon.phegonbank.notification.executor;
+
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.notification.dtos.NotificationDTO;
+
+// submittedAt is System.nanoTime(), for the queue wait metric
+record NotificationTask(NotificationDTO notification, User user, long submittedAt) {
+}
@@ -0,0 +1,179 @@
+package com.phegon.phegonbank.notification.log;
+
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.enums.NotificationStatus;
+import com.phegon.phegonbank.enums.NotificationType;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import com.phegon.phegonbank.notification.dtos.NotificationDTO;
+import com.phegon.phegonbank.notification.entity.Notification;
+import com.phegon.phegonbank.notification.repo.NotificationRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the notification log off the sending path: record() only offers the row to a bounded
+ * queue (a full queue drops the row and counts it, it never blocks a send), and a background thread
+ * inserts whatever has accumulated as one JDBC batch, at most every flush-interval-ms. The same
+ * thread deletes rows older than retention-days, purge-chunk rows at a time, every purge-interval-ms.
+ * Rows still queued at shutdown are written before the thread stops.
+ */
+@Component
+@Slf4j
+public class NotificationLogWriter implements MetricsSource {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final NotificationRepo notificationRepo;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int retentionDays;
+    private final long purgeIntervalNanos;
+    private final int purgeChunk;
+
+    private final BlockingQueue<Notification> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder droppedQueueFull = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    public NotificationLogWriter(NotificationRepo notificationRepo,
+                                 @Value("${bank.notifications.log.queue-capacity:50000}") int queueCapacity,
+                                 @Value("${bank.notifications.log.batch-size:500}") int batchSize,
+                                 @Value("${bank.notifications.log.flush-interval-ms:500}") long flushIntervalMillis,
+                                 @Value("${bank.notifications.log.retention-days:90}") int retentionDays,
+                                 @Value("${bank.notifications.log.purge-interval-ms:3600000}") long purgeIntervalMillis,
+                                 @Value("${bank.notifications.log.purge-chunk:5000}") int purgeChunk) {
+        this.notificationRepo = notificationRepo;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.retentionDays = retentionDays;
+        this.purgeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, purgeIntervalMillis));
+        this.purgeChunk = Math.max(1, purgeChunk);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("notification-log").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false; // the worker notices within flush-interval-ms
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public void recordSent(NotificationDTO notification, User user) {
+        record(notification, user, NotificationStatus.SENT, null);
+    }
+
+    public void recordFailed(NotificationDTO notification, User user, Exception error) {
+        record(notification, user, NotificationStatus.FAILED, error.getMessage());
+    }
+
+    private void record(NotificationDTO notification, User user, NotificationStatus status, String error) {
+        boolean templated = notification.getTemplateName() != null && !notification.getTemplateName().isEmpty();
+        Notification row = Notification.builder()
+                .recipient(notification.getRecipient())
+                .subject(notification.getSubject())
+                .body(templated ? null : notification.getBody())
+                .templateName(templated ? notification.getTemplateName() : null)
+                .type(notification.getType() != null ? notification.getType() : NotificationType.EMAIL)
+                .status(status)
+                .error(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error)
+                .user(user)
+                .createdAt(LocalDateTime.now())
+                .build();
+        recorded.increment();
+        if (!queue.offer(row)) {
+            droppedQueueFull.increment();
+        }
+    }
+
+    private void run() {
+        long nextPurge = System.nanoTime();
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Notification first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                }
+                if (retentionDays > 0 && System.nanoTime() - nextPurge >= 0) {
+                    purge();
+                    nextPurge = System.nanoTime() + purgeIntervalNanos;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Notification log maintenance failed: {}", e.getMessage());
+            }
+        }
+        // shutdown: write what is left
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Notification> batch) {
+        try {
+            notificationRepo.insertAll(batch);
+            written.add(batch.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            // the log is best effort, a failed batch is not retried so it cannot back the queue up
+            writeFailures.add(batch.size());
+            log.warn("Could not write {} notification log rows: {}", batch.size(), e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int deleted;
+        do {
+            deleted = notificationRepo.deleteCreatedBefore(cutoff, purgeChunk);
+            purged.add(deleted);
+        } while (deleted == purgeChunk && running);
+    }
+
+    @Override
+    public String getName() {
+        return "notification-log";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("recorded", recorded.sum());
+        stats.put("written", written.sum());
+        stats.put("batches", batches.sum());
+        stats.put("droppedQueueFull", droppedQueueFull.sum());
+        stats.put("writeFailures", writeFailures.sum());
+        stats.put("purged", purged.sum());
+        return stats;
+    }
+}
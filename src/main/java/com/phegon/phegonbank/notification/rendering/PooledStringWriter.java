@@ -0,0 +1,76 @@
+package com.phegon.phegonbank.notification.rendering;
+
+import java.io.Writer;
+
+/**
+ * Unsynchronized Writer over a StringBuilder that can be cleared and reused, unlike StringWriter
+ * (synchronized StringBuffer) or Thymeleaf's FastStringWriter (no way to reset). One render at a
+ * time: TemplateRenderer takes it from the pool, renders, copies out the String and resets it.
+ */
+final class PooledStringWriter extends Writer {
+
+    private final StringBuilder chars;
+
+    PooledStringWriter(int initialCapacity) {
+        this.chars = new StringBuilder(initialCapacity);
+    }
+
+    @Override
+    public void write(int c) {
+        chars.append((char) c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        chars.append(buffer, offset, length);
+    }
+
+    @Override
+    public void write(String str) {
+        chars.append(str);
+    }
+
+    @Override
+    public void write(String str, int offset, int length) {
+        chars.append(str, offset, offset + length);
+    }
+
+    @Override
+    public Writer append(CharSequence sequence) {
+        chars.append(sequence);
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence sequence, int start, int end) {
+        chars.append(sequence, start, end);
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) {
+        chars.append(c);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    void reset() {
+        chars.setLength(0);
+    }
+
+    int capacity() {
+        return chars.capacity();
+    }
+
+    @Override
+    public String toString() {
+        return chars.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package com.phegon.phegonbank.notification.rendering;
+
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders the email templates. Every template under templates/ is rendered once at startup so
+ * its parsed form is in the engine's cache (size and TTL set in AppConfig) before the first real
+ * email; after that a render is variable substitution into a pooled, unsynchronized buffer.
+ * Render counts and times are kept per template name.
+ */
+@Component
+@Slf4j
+public class TemplateRenderer implements MetricsSource {
+
+    private static final String TEMPLATE_LOCATION = "classpath*:templates/*.html";
+    private static final int INITIAL_BUFFER_CHARS = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER_CHARS = 256 * 1024; // an unusually large render is not kept
+
+    private final TemplateEngine templateEngine;
+    private final BlockingQueue<PooledStringWriter> buffers;
+    private final Map<String, RenderStats> stats = new ConcurrentHashMap<>();
+    private volatile int preloaded;
+
+    public TemplateRenderer(TemplateEngine templateEngine,
+                            @Value("${bank.notifications.templates.buffer-pool-size:64}") int bufferPoolSize) {
+        this.templateEngine = templateEngine;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, bufferPoolSize));
+    }
+
+    @PostConstruct
+    public void preload() throws IOException {
+        Resource[] templates = new PathMatchingResourcePatternResolver().getResources(TEMPLATE_LOCATION);
+        int loaded = 0;
+        for (Resource template : templates) {
+            String fileName = template.getFilename();
+            if (fileName == null) {
+                continue;
+            }
+            String name = fileName.substring(0, fileName.length() - ".html".length());
+            try {
+                // no variables: expressions come out empty, but the template is parsed and cached
+                templateEngine.process(name, new Context(), Writer.nullWriter());
+                stats.computeIfAbsent(name, key -> new RenderStats());
+                loaded++;
+            } catch (RuntimeException e) {
+                log.warn("Could not preload email template {}: {}", name, e.getMessage());
+            }
+        }
+        preloaded = loaded;
+        log.info("Preloaded {} email templates", loaded);
+    }
+
+    public String render(String templateName, Map<String, Object> variables) {
+        PooledStringWriter buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new PooledStringWriter(INITIAL_BUFFER_CHARS);
+        }
+        RenderStats templateStats = stats.computeIfAbsent(templateName, key -> new RenderStats());
+        long start = System.nanoTime();
+        try {
+            templateEngine.process(templateName, new Context(Locale.getDefault(), variables == null ? Map.of() : variables), buffer);
+            String html = buffer.toString();
+            templateStats.record(System.nanoTime() - start, html.length());
+            return html;
+        } catch (RuntimeException e) {
+            templateStats.failures.increment();
+            throw e;
+        } finally {
+            // cleared before it goes back, the next email must not start with this one's HTML
+            if (buffer.capacity() <= MAX_RETAINED_BUFFER_CHARS) {
+                buffer.reset();
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "email-templates";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> templates = new TreeMap<>();
+        stats.forEach((name, templateStats) -> templates.put(name, templateStats.toMap()));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("preloaded", preloaded);
+        snapshot.put("pooledBuffers", buffers.size());
+        snapshot.put("templates", templates);
+        return snapshot;
+    }
+
+    private static final class RenderStats {
+        private final LongAdder renders = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder renderNanos = new LongAdder();
+        private final AtomicLong maxRenderNanos = new AtomicLong();
+        private final LongAdder outputChars = new LongAdder();
+
+        void record(long nanos, int chars) {
+            renders.increment();
+            renderNanos.add(nanos);
+            maxRenderNanos.accumulateAndGet(nanos, Math::max);
+            outputChars.add(chars);
+        }
+
+        Map<String, Object> toMap() {
+            long count = renders.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("renders", count);
+            map.put("failures", failures.sum());
+            map.put("avgRenderMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(renderNanos.sum() / count));
+            map.put("maxRenderMicros", TimeUnit.NANOSECONDS.toMicros(maxRenderNanos.get()));
+            map.put("avgOutputChars", count == 0 ? 0 : outputChars.sum() / count);
+            return map;
+        }
+    }
+}
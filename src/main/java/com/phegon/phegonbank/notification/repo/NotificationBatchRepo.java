@@ -0,0 +1,14 @@
+package com.phegon.phegonbank.notification.repo;
+
+import com.phegon.phegonbank.notification.entity.Notification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationBatchRepo {
+    // plain JDBC batch insert, same reason as TransactionBatchRepo
+    void insertAll(List<Notification> notifications);
+
+    // deletes at most limit rows created before cutoff, so a purge never holds locks on the whole range
+    int deleteCreatedBefore(LocalDateTime cutoff, int limit);
+}
@@ -0,0 +1,53 @@
+package com.phegon.phegonbank.notification.repo;
+
+import com.phegon.phegonbank.notification.entity.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class NotificationBatchRepoImpl implements NotificationBatchRepo {
+
+    private static final String INSERT_SQL = "insert into notification_log " +
+            "(user_id, recipient, subject, body, template_name, type, status, error, created_at) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String PURGE_SQL = "delete from notification_log where created_at < ? limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${bank.transactions.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Override
+    public void insertAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, notifications, jdbcBatchSize, (ps, notification) -> {
+            if (notification.getUser() == null || notification.getUser().getId() == null) {
+                ps.setNull(1, Types.BIGINT);
+            } else {
+                ps.setLong(1, notification.getUser().getId());
+            }
+            ps.setString(2, notification.getRecipient());
+            ps.setString(3, notification.getSubject());
+            ps.setString(4, notification.getBody());
+            ps.setString(5, notification.getTemplateName());
+            ps.setString(6, notification.getType().name());
+            ps.setString(7, notification.getStatus().name());
+            ps.setString(8, notification.getError());
+            ps.setTimestamp(9, Timestamp.valueOf(notification.getCreatedAt()));
+        });
+    }
+
+    @Override
+    public int deleteCreatedBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+}
@@ -1,8 +1,15 @@
 package com.phegon.phegonbank.notification.repo;
 
 import com.phegon.phegonbank.notification.entity.Notification;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface NotificationRepo extends JpaRepository<Notification, Long> {
+import java.util.List;
 
+public interface NotificationRepo extends JpaRepository<Notification, Long>, NotificationBatchRepo {
+
+    // support lookups, newest first; served by idx_notification_log_user_created / _recipient_created
+    List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId, Limit limit);
+
+    List<Notification> findByRecipientOrderByCreatedAtDesc(String recipient, Limit limit);
 }
@@ -0,0 +1,21 @@
+package com.phegon.phegonbank.notification.repo;
+
+import com.phegon.phegonbank.notification.entity.SpilledNotification;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+
+public interface SpilledNotificationRepo extends JpaRepository<SpilledNotification, Long> {
+
+    // oldest first; lock timeout -2 is SKIP LOCKED, so instances refilling at the same time never take the same rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select n from SpilledNotification n order by n.id")
+    List<SpilledNotification> findOldest(Limit limit);
+}
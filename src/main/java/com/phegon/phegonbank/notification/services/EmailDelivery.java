@@ -0,0 +1,56 @@
+package com.phegon.phegonbank.notification.services;
+
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.notification.dtos.NotificationDTO;
+import com.phegon.phegonbank.notification.log.NotificationLogWriter;
+import com.phegon.phegonbank.notification.rendering.TemplateRenderer;
+import com.phegon.phegonbank.notification.transport.SmtpTransportPool;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+// renders and sends one email on the calling thread; NotificationExecutor decides which thread that is
+@Component
+@RequiredArgsConstructor
+public class EmailDelivery {
+    private final SmtpTransportPool smtpTransportPool;
+    private final TemplateRenderer templateRenderer;
+    private final NotificationLogWriter notificationLogWriter;
+
+    // every attempt ends up in the notification log; recording only queues the row
+    public void deliver(NotificationDTO notificationDTO, User user) throws MessagingException {
+        try {
+            send(notificationDTO);
+        } catch (MessagingException | RuntimeException e) {
+            notificationLogWriter.recordFailed(notificationDTO, user, e);
+            throw e;
+        }
+        notificationLogWriter.recordSent(notificationDTO, user);
+    }
+
+    private void send(NotificationDTO notificationDTO) throws MessagingException {
+        MimeMessage mimeMessage = smtpTransportPool.createMimeMessage();
+
+        MimeMessageHelper helper = new MimeMessageHelper(
+                mimeMessage,
+                MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
+                StandardCharsets.UTF_8.name());
+        helper.setTo(notificationDTO.getRecipient());
+        helper.setSubject(notificationDTO.getSubject());
+
+        if (notificationDTO.getTemplateName() != null && !notificationDTO.getTemplateName().isEmpty()) {
+            // 现在这里安全了，因为确保了 templateName 不为空
+            String htmlContent = templateRenderer.render(notificationDTO.getTemplateName(), notificationDTO.getTemplateVariables());
+            helper.setText(htmlContent, true);
+        } else {
+            // 没有模板名，就直接发送 Body 内容
+            helper.setText(notificationDTO.getBody(), true);
+        }
+
+        smtpTransportPool.send(mimeMessage);
+    }
+}
@@ -1,73 +1,27 @@
 package com.phegon.phegonbank.notification.services;
 
 import com.phegon.phegonbank.auth_users.entity.User;
-import com.phegon.phegonbank.enums.NotificationType;
+import com.phegon.phegonbank.notification.digest.NotificationCoalescer;
 import com.phegon.phegonbank.notification.dtos.NotificationDTO;
-import com.phegon.phegonbank.notification.entity.Notification;
-import com.phegon.phegonbank.notification.repo.NotificationRepo;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.phegon.phegonbank.notification.executor.NotificationExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-
-import org.thymeleaf.context.Context;
-import java.nio.charset.StandardCharsets;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class NotificationServiceImpl implements NotificationService {
-    private final NotificationRepo notificationRepo;
-    private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final NotificationExecutor notificationExecutor;
+    private final NotificationCoalescer notificationCoalescer;
 
+    // returns straight away, the email is rendered and sent by the notification executor (see EmailDelivery);
+    // credit/debit alerts may first wait in the coalescer to go out as one digest
     @Override
-    @Async
     public void sendEmail(NotificationDTO notificationDTO, User user){
-        try{
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-
-            MimeMessageHelper helper = new MimeMessageHelper(
-                    mimeMessage,
-                    MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
-                    StandardCharsets.UTF_8.name());
-            helper.setTo(notificationDTO.getRecipient());
-            helper.setSubject(notificationDTO.getSubject());
-
-            if (notificationDTO.getTemplateName() != null && !notificationDTO.getTemplateName().isEmpty()) {
-                Context context = new Context();
-                context.setVariables(notificationDTO.getTemplateVariables());
-                // 现在这里安全了，因为确保了 templateName 不为空
-                String htmlContent = templateEngine.process(notificationDTO.getTemplateName(), context);
-                helper.setText(htmlContent, true);
-            } else {
-                // 没有模板名，就直接发送 Body 内容
-                helper.setText(notificationDTO.getBody(), true);
-            }
-
-            mailSender.send(mimeMessage);
-
-            //Save to our DB table
-            /*
-            Notification notificationToSave = Notification.builder()
-                    .recipient(notificationDTO.getRecipient())
-                    .subject(notificationDTO.getSubject())
-                    .body(notificationDTO.getBody())
-                    .type(NotificationType.EMAIL)
-                    .user(user)
-                    .build();*/
-
-
-        }catch(MessagingException e){
-            log.error(e.getMessage());
+        if (!notificationCoalescer.offer(notificationDTO, user)) {
+            notificationExecutor.submit(notificationDTO, user);
         }
-
-
     }
 
 }
@@ -0,0 +1,221 @@
+package com.phegon.phegonbank.notification.transport;
+
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps bank.notifications.smtp.pool-size authenticated SMTP connections open and sends every
+ * message over one of them, so the TCP connect, STARTTLS and AUTH round trips are paid once per
+ * connection instead of once per email. Connection settings come from the spring.mail.* sender.
+ * A connection is closed and reopened after max-messages-per-connection messages, after being idle
+ * for idle-timeout-ms (the server will have dropped it) and after any send error, in which case the
+ * message is retried once on the fresh connection. Each connection sends at most
+ * max-messages-per-second (0 = no limit), callers wait for a free connection.
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool implements MetricsSource {
+
+    private final JavaMailSenderImpl mailSender;
+    private final int poolSize;
+    private final int maxMessagesPerConnection;
+    private final long minSendIntervalNanos;
+    private final long idleTimeoutNanos;
+    private final long borrowTimeoutMillis;
+
+    private final BlockingQueue<PooledTransport> idle;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsRecycled = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final LongAdder rateLimitedNanos = new LongAdder();
+
+    public SmtpTransportPool(JavaMailSenderImpl mailSender,
+                             @Value("${bank.notifications.smtp.pool-size:4}") int poolSize,
+                             @Value("${bank.notifications.smtp.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                             @Value("${bank.notifications.smtp.max-messages-per-second:0}") double maxMessagesPerSecond,
+                             @Value("${bank.notifications.smtp.idle-timeout-ms:60000}") long idleTimeoutMillis,
+                             @Value("${bank.notifications.smtp.borrow-timeout-ms:30000}") long borrowTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.poolSize = Math.max(1, poolSize);
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        this.minSendIntervalNanos = maxMessagesPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxMessagesPerSecond) : 0;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, idleTimeoutMillis));
+        this.borrowTimeoutMillis = Math.max(1, borrowTimeoutMillis);
+
+        // connections are opened lazily on first use, so an unreachable mail server does not fail startup
+        this.idle = new ArrayBlockingQueue<>(this.poolSize);
+        for (int i = 0; i < this.poolSize; i++) {
+            idle.add(new PooledTransport());
+        }
+    }
+
+    public MimeMessage createMimeMessage() {
+        return mailSender.createMimeMessage();
+    }
+
+    public void send(MimeMessage message) throws MessagingException {
+        PooledTransport connection = borrow();
+        try {
+            prepare(message);
+            try {
+                connection.send(message);
+            } catch (SendFailedException e) {
+                throw e; // rejected recipients, another connection would not change that
+            } catch (MessagingException e) {
+                log.warn("SMTP send failed, reconnecting and retrying once: {}", e.getMessage());
+                retried.increment();
+                connection.close();
+                connection.send(message);
+            }
+            sent.increment();
+        } catch (MessagingException e) {
+            failed.increment();
+            connection.close();
+            throw e;
+        } finally {
+            idle.offer(connection);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        List<PooledTransport> connections = new ArrayList<>(poolSize);
+        idle.drainTo(connections);
+        connections.forEach(PooledTransport::close);
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        long start = System.nanoTime();
+        try {
+            PooledTransport connection = idle.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw new MessagingException("No SMTP connection free within " + borrowTimeoutMillis + " ms");
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted waiting for an SMTP connection", e);
+        } finally {
+            borrowWaitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // what JavaMailSenderImpl.send does before handing the message to the transport
+    private static void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "smtp-pool";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        long count = sent.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", poolSize);
+        stats.put("idleConnections", idle.size());
+        stats.put("sent", count);
+        stats.put("failed", failed.sum());
+        stats.put("retried", retried.sum());
+        stats.put("connectionsOpened", connectionsOpened.sum());
+        stats.put("connectionsRecycled", connectionsRecycled.sum());
+        stats.put("messagesPerConnection", connectionsOpened.sum() == 0 ? 0 : count / connectionsOpened.sum());
+        stats.put("borrowWaitMillis", TimeUnit.NANOSECONDS.toMillis(borrowWaitNanos.sum()));
+        stats.put("rateLimitedMillis", TimeUnit.NANOSECONDS.toMillis(rateLimitedNanos.sum()));
+        return stats;
+    }
+
+    // only touched by the thread that borrowed it
+    private final class PooledTransport {
+        private Transport transport;
+        private int messagesSent;
+        private long lastUsedAt;
+        private long nextSendAt;
+
+        void send(MimeMessage message) throws MessagingException {
+            long now = System.nanoTime();
+            if (transport != null && (messagesSent >= maxMessagesPerConnection || now - lastUsedAt > idleTimeoutNanos)) {
+                connectionsRecycled.increment();
+                close();
+            }
+            if (transport == null) {
+                open();
+            }
+            throttle();
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+            } finally {
+                messagesSent++;
+                lastUsedAt = System.nanoTime();
+            }
+        }
+
+        private void open() throws MessagingException {
+            Transport opened = mailSender.getSession().getTransport(mailSender.getProtocol());
+            opened.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            transport = opened;
+            messagesSent = 0;
+            connectionsOpened.increment();
+        }
+
+        private void throttle() throws MessagingException {
+            if (minSendIntervalNanos == 0) {
+                return;
+            }
+            long wait = nextSendAt - System.nanoTime();
+            if (wait > 0) {
+                rateLimitedNanos.add(wait);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MessagingException("Interrupted while rate limited", e);
+                }
+            }
+            nextSendAt = System.nanoTime() + minSendIntervalNanos;
+        }
+
+        void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Closing SMTP connection failed: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.phegon.phegonbank.role.services;
 
 
+import com.phegon.phegonbank.auth_users.events.UserChangedEvent;
 import com.phegon.phegonbank.exceptions.BadRequestException;
 import com.phegon.phegonbank.exceptions.NotFoundException;
 import com.phegon.phegonbank.res.Response;
 import com.phegon.phegonbank.role.entity.Role;
 import com.phegon.phegonbank.role.repo.RoleRepo;
+import com.phegon.phegonbank.security.TokenEpochs;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -17,6 +20,8 @@ import java.util.List;
 public class RoleServiceImpl implements RoleService {
 
     private final RoleRepo roleRepo;
+    private final TokenEpochs tokenEpochs;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Response<Role> createRole(Role roleRequest){
@@ -39,6 +44,8 @@ public class RoleServiceImpl implements RoleService {
 
         role.setName(roleRequest.getName());
         Role updatedRole = roleRepo.save(role);
+        tokenEpochs.revokeAllTokens(); // role names are token claims
+        eventPublisher.publishEvent(UserChangedEvent.allUsers());
         return Response.<Role>builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Role updated successfully")
@@ -62,6 +69,8 @@ public class RoleServiceImpl implements RoleService {
             throw new NotFoundException("Role not found");
         }
         roleRepo.deleteById(id);
+        tokenEpochs.revokeAllTokens();
+        eventPublisher.publishEvent(UserChangedEvent.allUsers());
 
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
@@ -1,33 +1,53 @@
 package com.phegon.phegonbank.security;
 
 import com.phegon.phegonbank.exceptions.CustomAuthenticationEntryPoint;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @Slf4j
-@RequiredArgsConstructor
 
 
 public class AuthFilter extends OncePerRequestFilter {
 
     private final TokenService tokenService;
     private final CustomUserDetailsService customUserDetailsService;
+    private final TokenEpochs tokenEpochs;
+    private final TokenRevocations tokenRevocations;
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
+    private final boolean claimsPrincipal; // false: roles and active flag come from the database (cached) on every request
+
+    public AuthFilter(TokenService tokenService,
+                      CustomUserDetailsService customUserDetailsService,
+                      TokenEpochs tokenEpochs,
+                      TokenRevocations tokenRevocations,
+                      CustomAuthenticationEntryPoint customAuthenticationEntryPoint,
+                      @Value("${bank.security.claims-principal:true}") boolean claimsPrincipal) {
+        this.tokenService = tokenService;
+        this.customUserDetailsService = customUserDetailsService;
+        this.tokenEpochs = tokenEpochs;
+        this.tokenRevocations = tokenRevocations;
+        this.customAuthenticationEntryPoint = customAuthenticationEntryPoint;
+        this.claimsPrincipal = claimsPrincipal;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -35,9 +55,9 @@ public class AuthFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws IOException, ServletException {
         String token = getTokenFromRequest(request);
         if(token != null) {
-            String email;
+            Claims claims;
             try{
-                email = tokenService.getUsernameFromToken(token);
+                claims = tokenService.verify(token); // signature and expiry checked once, here
 
             }catch (Exception e){
                 log.error("Exception occurred while extacting username from token.");
@@ -47,14 +67,27 @@ public class AuthFilter extends OncePerRequestFilter {
 
             }
 
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
+            TokenPrincipal principal = claimsPrincipal ? tokenService.principalOf(claims) : null;
+            if (principal == null) {
+                // database-backed mode, or a token issued before user id and roles were claims
+                UserSnapshot user = customUserDetailsService.loadSnapshot(claims.getSubject());
+                if (!user.active()) {
+                    customAuthenticationEntryPoint.commence(request, response, new DisabledException("Account is disabled"));
+                    return;
+                }
+                principal = TokenPrincipal.of(user);
+            }
 
-            if(tokenService.isTokenValid(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (tokenEpochs.isRevoked(principal.getUserId(), claims.getIssuedAt()) || tokenRevocations.isRevoked(claims.getId())) {
+                customAuthenticationEntryPoint.commence(request, response, new CredentialsExpiredException("Token has been revoked"));
+                return;
             }
 
+            List<SimpleGrantedAuthority> authorities = principal.getRoles().stream().map(SimpleGrantedAuthority::new).toList();
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+
         }
         try{
             filterChain.doFilter(request, response);
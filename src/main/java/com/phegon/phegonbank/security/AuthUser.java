@@ -1,34 +0,0 @@
-package com.phegon.phegonbank.security;
-
-import com.phegon.phegonbank.auth_users.entity.User;
-import jakarta.annotation.Nullable;
-import lombok.Builder;
-import lombok.Data;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
-
-import java.util.Collection;
-import java.util.stream.Collectors;
-
-@Builder
-@Data
-public class AuthUser implements UserDetails {
-
-    private User user;
-
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream().map(role -> new SimpleGrantedAuthority(role.getName())).collect(Collectors.toList());
-    }
-    @Override
-    public @Nullable String getPassword(){
-        return user.getPassword();
-    }
-
-    @Override
-    public String getUsername(){
-        return user.getEmail();
-
-    }
-}
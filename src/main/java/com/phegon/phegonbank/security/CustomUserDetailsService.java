@@ -14,13 +14,30 @@ import org.springframework.stereotype.Service;
 
 public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepo userRepo;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepo.findByEmail(username).orElseThrow(() -> new NotFoundException("Email Not Found"));
-        return AuthUser.builder().user(user).build();
+        UserSnapshot user = loadSnapshot(username);
+        return org.springframework.security.core.userdetails.User.withUsername(user.email())
+                .password(user.password())
+                .authorities(user.roles().toArray(String[]::new))
+                .disabled(!user.active())
+                .build();
 
     }
 
+    // served from UserDetailsCache when possible, one users+roles query otherwise
+    public UserSnapshot loadSnapshot(String email) {
+        UserSnapshot snapshot = userDetailsCache.get(email);
+        if (snapshot == null) {
+            long generation = userDetailsCache.generation(email); // before the read, see UserDetailsCache
+            User user = userRepo.findByEmail(email).orElseThrow(() -> new NotFoundException("Email Not Found"));
+            snapshot = UserSnapshot.of(user);
+            userDetailsCache.put(snapshot, generation);
+        }
+        return snapshot;
+    }
+
 
 }
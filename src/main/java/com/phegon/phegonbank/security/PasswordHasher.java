@@ -0,0 +1,194 @@
+package com.phegon.phegonbank.security;
+
+import com.phegon.phegonbank.exceptions.ServiceBusyException;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs BCrypt on its own fixed pool, so at most `threads` hashes burn CPU at once however many
+ * requests log in, and the transfer path keeps its cores. Callers block a request thread on the
+ * result; when queue-capacity hashes are already waiting the call fails fast with
+ * ServiceBusyException (503) instead of queueing behind work that will time out anyway.
+ * <p>
+ * Every queued hash parks one Tomcat worker, so threads + queue-capacity has to stay well below
+ * server.tomcat.threads.max (200 by default) or a login storm still takes every request thread
+ * before anything is refused. The default queue is QUEUE_SLOTS_PER_THREAD hashes per pool thread.
+ */
+@Component
+@Slf4j
+public class PasswordHasher implements MetricsSource {
+
+    private static final int QUEUE_SLOTS_PER_THREAD = 4;
+
+    private final PasswordEncoder passwordEncoder;
+    private final int cost;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder encodes = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${bank.security.bcrypt.cost:10}") int cost,
+                          @Value("${bank.security.password-hashing.threads:0}") int threads,
+                          @Value("${bank.security.password-hashing.queue-capacity:0}") int queueCapacity,
+                          @Value("${bank.security.password-hashing.timeout-ms:10000}") long timeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.cost = cost;
+        this.timeoutMillis = timeoutMillis;
+        // 0 = half the cores, the rest stay free for request handling
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        // 0 = a few hashes per thread, enough to smooth bursts without parking many request threads
+        int queueSize = queueCapacity > 0 ? queueCapacity : poolSize * QUEUE_SLOTS_PER_THREAD;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                task -> Thread.ofPlatform().name("password-hasher-" + threadNumber.incrementAndGet()).daemon().unstarted(task),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        encodes.increment();
+        return await(submit(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        verifications.increment();
+        return await(submit(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    // true when the hash was made with another cost than bank.security.bcrypt.cost, in either direction
+    public boolean needsRehash(String encodedPassword) {
+        return costOf(encodedPassword) != cost;
+    }
+
+    /**
+     * Hashes the password with the configured cost in the background and hands the new hash to
+     * the callback. The caller has already answered the login; a full queue just skips it and the
+     * next login tries again.
+     */
+    public void rehashLater(CharSequence rawPassword, Consumer<String> onRehashed) {
+        try {
+            submit(() -> {
+                try {
+                    onRehashed.accept(passwordEncoder.encode(rawPassword));
+                    rehashes.increment();
+                } catch (RuntimeException e) {
+                    log.warn("Password rehash failed: {}", e.getMessage());
+                }
+                return null;
+            });
+        } catch (ServiceBusyException e) {
+            log.debug("Skipped password rehash, hashing queue is full");
+        }
+    }
+
+    // $2a$10$... -> 10, -1 for anything that is not a BCrypt hash so it always counts as outdated
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    private <T> Future<T> submit(Callable<T> work) {
+        long queuedAt = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                long waited = startedAt - queuedAt;
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulate(waited);
+                try {
+                    return work.call();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many logins in progress, try again shortly");
+        }
+    }
+
+    private <T> T await(Future<T> result) {
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            timeouts.increment();
+            throw new ServiceBusyException("Password check timed out, try again shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Password check interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "password-hashing";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        long completed = executor.getCompletedTaskCount();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cost", cost);
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueRemaining", executor.getQueue().remainingCapacity());
+        stats.put("completed", completed);
+        stats.put("encodes", encodes.sum());
+        stats.put("verifications", verifications.sum());
+        stats.put("rehashes", rehashes.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("avgQueueWaitMicros", completed == 0 ? 0 : queueWaitNanos.sum() / completed / 1000);
+        stats.put("maxQueueWaitMicros", maxQueueWaitNanos.get() / 1000);
+        stats.put("avgHashMicros", completed == 0 ? 0 : hashNanos.sum() / completed / 1000);
+        return stats;
+    }
+}
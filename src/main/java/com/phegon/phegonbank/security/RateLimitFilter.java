@@ -0,0 +1,191 @@
+package com.phegon.phegonbank.security;
+
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import com.phegon.phegonbank.res.Response;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throttles the endpoints that cost us BCrypt, reset codes, emails or balance updates per caller.
+ * Runs right after AuthFilter: authenticated requests are limited per user id, anonymous ones per
+ * client address (getRemoteAddr, set server.forward-headers-strategy when behind a proxy), and every
+ * route class has its own TokenBuckets. A refused request gets 429 with Retry-After in seconds.
+ * Refilled buckets are evicted every sweep-interval-ms, so only callers that are actually being
+ * throttled stay in memory.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter implements MetricsSource {
+
+    enum Route {
+        LOGIN, REGISTER, PASSWORD_RESET, TRANSFER
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long sweepIntervalMillis;
+    private final Map<Route, TokenBuckets> limits = new EnumMap<>(Route.class);
+    private final Map<Route, LongAdder> allowed = new EnumMap<>(Route.class);
+    private final Map<Route, LongAdder> throttled = new EnumMap<>(Route.class);
+    private final LongAdder evicted = new LongAdder();
+    private Thread sweeper;
+    private volatile boolean running;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           @Value("${bank.security.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${bank.security.rate-limit.max-keys-per-route:1000000}") int maxKeys,
+                           @Value("${bank.security.rate-limit.sweep-interval-ms:60000}") long sweepIntervalMillis,
+                           @Value("${bank.security.rate-limit.login.capacity:10}") int loginCapacity,
+                           @Value("${bank.security.rate-limit.login.period-ms:60000}") long loginPeriodMillis,
+                           @Value("${bank.security.rate-limit.register.capacity:5}") int registerCapacity,
+                           @Value("${bank.security.rate-limit.register.period-ms:3600000}") long registerPeriodMillis,
+                           @Value("${bank.security.rate-limit.password-reset.capacity:5}") int resetCapacity,
+                           @Value("${bank.security.rate-limit.password-reset.period-ms:900000}") long resetPeriodMillis,
+                           @Value("${bank.security.rate-limit.transfer.capacity:30}") int transferCapacity,
+                           @Value("${bank.security.rate-limit.transfer.period-ms:60000}") long transferPeriodMillis) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.sweepIntervalMillis = Math.max(1, sweepIntervalMillis);
+        long now = System.nanoTime();
+        limits.put(Route.LOGIN, new TokenBuckets(loginCapacity, loginPeriodMillis, maxKeys, now));
+        limits.put(Route.REGISTER, new TokenBuckets(registerCapacity, registerPeriodMillis, maxKeys, now));
+        limits.put(Route.PASSWORD_RESET, new TokenBuckets(resetCapacity, resetPeriodMillis, maxKeys, now));
+        limits.put(Route.TRANSFER, new TokenBuckets(transferCapacity, transferPeriodMillis, maxKeys, now));
+        for (Route route : Route.values()) {
+            allowed.put(route, new LongAdder());
+            throttled.put(route, new LongAdder());
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        sweeper = Thread.ofPlatform().name("rate-limit-sweeper").daemon().start(this::sweep);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (sweeper == null) {
+            return;
+        }
+        running = false;
+        sweeper.interrupt();
+        sweeper.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws IOException, ServletException {
+        Route route = enabled ? routeOf(request) : null;
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long waitNanos = limits.get(route).tryAcquire(route.name() + '|' + callerOf(request), System.nanoTime());
+        if (waitNanos > 0) {
+            throttled.get(route).increment();
+            reject(response, waitNanos);
+            return;
+        }
+        allowed.get(route).increment();
+        filterChain.doFilter(request, response);
+    }
+
+    private static Route routeOf(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return switch (path) {
+            case "/api/auth/login" -> Route.LOGIN;
+            case "/api/auth/register" -> Route.REGISTER;
+            case "/api/auth/forgot-password", "/api/auth/reset-password" -> Route.PASSWORD_RESET;
+            case "/api/transactions", "/api/transactions/batch" -> Route.TRANSFER;
+            default -> null;
+        };
+    }
+
+    // AuthFilter has already run, an authenticated caller is limited as a user wherever it connects from
+    private static String callerOf(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof TokenPrincipal principal) {
+            return "u:" + principal.getUserId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        Response<?> errorResponse = Response.builder()
+                .statusCode(HttpStatus.TOO_MANY_REQUESTS.value()) // 429
+                .message("Too many requests, retry in " + retryAfterSeconds + " seconds")
+                .build();
+
+        response.setContentType("application/json");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+
+    private void sweep() {
+        while (running) {
+            try {
+                Thread.sleep(sweepIntervalMillis);
+                long now = System.nanoTime();
+                for (TokenBuckets buckets : limits.values()) {
+                    evicted.add(buckets.evictIdle(now));
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Evicting rate limit buckets failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "rate-limit";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        for (Route route : Route.values()) {
+            TokenBuckets buckets = limits.get(route);
+            Map<String, Object> routeStats = new LinkedHashMap<>();
+            routeStats.put("allowed", allowed.get(route).sum());
+            routeStats.put("throttled", throttled.get(route).sum());
+            routeStats.put("buckets", buckets.size());
+            routeStats.put("overflowed", buckets.overflowed());
+            stats.put(route.name().toLowerCase(), routeStats);
+        }
+        stats.put("evicted", evicted.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,101 @@
+package com.phegon.phegonbank.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Two generations of a Bloom filter over strings. add() writes to the current generation,
+ * mightContain() checks both, and rotate() drops the older one and starts an empty current one.
+ * Rotating once per token lifetime keeps every entry for at least one full lifetime and at most two,
+ * so revoked token ids age out without ever being removed one by one.
+ * Lock free: bits are set with compare-and-set, a reader may miss an add that is still in progress.
+ */
+final class RotatingBloomFilter {
+
+    private final int bits;
+    private final int hashes;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    RotatingBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        this.current = new Generation(bits);
+        this.previous = new Generation(bits);
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        current.add(hash, bits, hashes);
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        return current.mightContain(hash, bits, hashes) || previous.mightContain(hash, bits, hashes);
+    }
+
+    synchronized void rotate() {
+        previous = current;
+        current = new Generation(bits);
+    }
+
+    int bitsPerGeneration() {
+        return bits;
+    }
+
+    int hashFunctions() {
+        return hashes;
+    }
+
+    // FNV-1a over the chars, then the splitmix64 finalizer to spread the bits
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    private static final class Generation {
+        private final AtomicLongArray words;
+
+        Generation(int bits) {
+            this.words = new AtomicLongArray((bits + 63) >>> 6);
+        }
+
+        // double hashing: bit i is h1 + i * h2 (Kirsch and Mitzenmacher)
+        void add(long hash, int bits, int hashes) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bits;
+                int word = bit >>> 6;
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean mightContain(long hash, int bits, int hashes) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bits;
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.phegon.phegonbank.security;
 import com.phegon.phegonbank.exceptions.CustomAccessDenialHandler;
 import com.phegon.phegonbank.exceptions.CustomAuthenticationEntryPoint;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -27,6 +28,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 public class SecurityFilter {
     private final AuthFilter authFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final CustomAccessDenialHandler customAccessDenialHandler;
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
 
@@ -39,13 +41,15 @@ public class SecurityFilter {
                 .authorizeHttpRequests(req-> req.requestMatchers("/api/auth/**", "/api/roles/**", "/api/register/**", "/profile-picture/**").permitAll()
                         .anyRequest().authenticated())
                 .sessionManagement(mag->mag.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(authFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(authFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, AuthFilter.class); // needs the user AuthFilter resolved
         return httpSecurity.build();
     }
 
+    // cost is log2 of the rounds; PasswordHasher rehashes older hashes on login when it changes
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${bank.security.bcrypt.cost:10}") int cost) {
+        return new BCryptPasswordEncoder(cost);
     }
 
     @Bean
@@ -0,0 +1,77 @@
+package com.phegon.phegonbank.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets by key, all with the same capacity and refill rate. Each bucket is a single
+ * AtomicLong holding the time it will be full again (the GCRA form of a token bucket): taking a
+ * token pushes that time one refill interval further, and the request is refused when it would
+ * land more than capacity intervals ahead of now. One compare-and-set per request, no locks.
+ * A bucket whose full-again time has passed is indistinguishable from a new one, so evictIdle()
+ * drops it without losing anything. Beyond maxKeys, new keys share one overflow bucket instead
+ * of growing the map.
+ */
+final class TokenBuckets {
+
+    private final long refillNanos;    // one token comes back every refillNanos
+    private final long capacityNanos;  // refillNanos * capacity, how far ahead a bucket may run
+    private final int maxKeys;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow;
+    private final LongAdder overflowed = new LongAdder();
+
+    TokenBuckets(int capacity, long periodMillis, int maxKeys, long nowNanos) {
+        int tokens = Math.max(1, capacity);
+        this.refillNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(Math.max(1, periodMillis)) / tokens);
+        this.capacityNanos = refillNanos * tokens;
+        this.maxKeys = Math.max(1, maxKeys);
+        this.overflow = new AtomicLong(nowNanos);
+    }
+
+    // 0 when a token was taken, otherwise the nanos until one is available
+    long tryAcquire(String key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                overflowed.increment();
+                bucket = overflow;
+            } else {
+                bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+            }
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = (fullAt - nowNanos > 0 ? fullAt : nowNanos) + refillNanos;
+            long wait = next - nowNanos - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // a token taken between the check and the remove is forgotten, at worst one extra token for that key
+    int evictIdle(long nowNanos) {
+        int evicted = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            if (entry.getValue().get() - nowNanos <= 0 && buckets.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    long overflowed() {
+        return overflowed.sum();
+    }
+}
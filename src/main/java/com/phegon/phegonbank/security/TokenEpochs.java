@@ -0,0 +1,95 @@
+package com.phegon.phegonbank.security;
+
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revocation for claims-based authentication: a token issued before its user's epoch, or before
+ * the global epoch, is rejected even though its signature and expiry are fine. Epochs move forward
+ * when a password changes or the user is deactivated (that user; login refuses inactive users, so
+ * no new token is issued until reactivation) or a role is renamed or deleted (everyone, since role
+ * names travel in the token). Kept in memory only and per instance; an epoch is forgotten once
+ * jwt.expiration has passed, because every token it could reject has expired by then.
+ * Token iat has whole-second precision, so a token issued earlier within the same second as the
+ * revocation still passes.
+ */
+@Component
+public class TokenEpochs implements MetricsSource {
+
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    private final long tokenLifetimeSeconds;
+    private final Map<Long, Long> userEpochSeconds = new ConcurrentHashMap<>();
+    private volatile long globalEpochSeconds;
+    private volatile long lastSweepSeconds;
+
+    private final LongAdder userRevocations = new LongAdder();
+    private final LongAdder globalRevocations = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public TokenEpochs(@Value("${jwt.expiration}") long tokenLifetimeMillis) {
+        this.tokenLifetimeSeconds = TimeUnit.MILLISECONDS.toSeconds(tokenLifetimeMillis) + 1;
+    }
+
+    public void revokeUserTokens(Long userId) {
+        long now = nowSeconds();
+        userEpochSeconds.put(userId, now);
+        userRevocations.increment();
+        sweep(now);
+    }
+
+    public void revokeAllTokens() {
+        globalEpochSeconds = nowSeconds();
+        globalRevocations.increment();
+    }
+
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        if (issuedAt == null) {
+            rejected.increment();
+            return true;
+        }
+        long issuedAtSeconds = TimeUnit.MILLISECONDS.toSeconds(issuedAt.getTime());
+        Long userEpoch = userEpochSeconds.get(userId);
+        if (issuedAtSeconds < globalEpochSeconds || (userEpoch != null && issuedAtSeconds < userEpoch)) {
+            rejected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void sweep(long now) {
+        if (now - lastSweepSeconds < SWEEP_INTERVAL_SECONDS) {
+            return;
+        }
+        lastSweepSeconds = now;
+        userEpochSeconds.values().removeIf(epoch -> now - epoch > tokenLifetimeSeconds);
+    }
+
+    private static long nowSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    @Override
+    public String getName() {
+        return "token-epochs";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("userEpochs", userEpochSeconds.size());
+        stats.put("globalEpochSeconds", globalEpochSeconds);
+        stats.put("userRevocations", userRevocations.sum());
+        stats.put("globalRevocations", globalRevocations.sum());
+        stats.put("rejectedTokens", rejected.sum());
+        return stats;
+    }
+}
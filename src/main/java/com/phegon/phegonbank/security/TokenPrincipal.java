@@ -0,0 +1,23 @@
+package com.phegon.phegonbank.security;
+
+import lombok.Value;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.List;
+
+// the authenticated user: built from token claims, or from a cached UserSnapshot when bank.security.claims-principal is off
+@Value
+public class TokenPrincipal implements AuthenticatedPrincipal {
+    Long userId;
+    String email;
+    List<String> roles;
+
+    public static TokenPrincipal of(UserSnapshot user) {
+        return new TokenPrincipal(user.id(), user.email(), user.roles());
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
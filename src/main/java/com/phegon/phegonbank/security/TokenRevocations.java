@@ -0,0 +1,168 @@
+package com.phegon.phegonbank.security;
+
+import com.phegon.phegonbank.auth_users.entity.RevokedToken;
+import com.phegon.phegonbank.auth_users.repo.RevokedTokenRepo;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revoked token ids (the jti claim). Revocations are written to revoked_tokens and added to a
+ * RotatingBloomFilter that AuthFilter asks on every request: a miss, which is nearly every request,
+ * costs a few hashes and no query; only a filter hit is confirmed against the table (or against the
+ * revocations this instance already confirmed). The filter is loaded with the live rows at startup,
+ * picks up other instances' revocations every refresh-interval-ms and rotates once per jwt.expiration,
+ * so ids drop out of it on their own; expired rows are deleted on the same schedule.
+ */
+@Component
+@Slf4j
+public class TokenRevocations implements MetricsSource {
+
+    private static final long SYNC_OVERLAP_SECONDS = 60; // re-reads rows committed late, adding twice is harmless
+
+    private final RevokedTokenRepo revokedTokenRepo;
+    private final RotatingBloomFilter filter;
+    private final long tokenLifetimeMillis;
+    private final long refreshIntervalMillis;
+
+    // confirmed revocations by jti -> expiry millis, so a replayed revoked token does not query every time
+    private final Map<String, Long> confirmed = new ConcurrentHashMap<>();
+    private Thread refresher;
+    private volatile boolean running;
+    private LocalDateTime lastSync;
+    private long lastRotation;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder exactLookups = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+
+    public TokenRevocations(RevokedTokenRepo revokedTokenRepo,
+                            @Value("${jwt.expiration}") long tokenLifetimeMillis,
+                            @Value("${bank.security.revocation.expected-revocations:100000}") int expectedRevocations,
+                            @Value("${bank.security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                            @Value("${bank.security.revocation.refresh-interval-ms:5000}") long refreshIntervalMillis) {
+        this.revokedTokenRepo = revokedTokenRepo;
+        this.tokenLifetimeMillis = Math.max(1, tokenLifetimeMillis);
+        this.refreshIntervalMillis = Math.max(1, refreshIntervalMillis);
+        this.filter = new RotatingBloomFilter(expectedRevocations, falsePositiveRate);
+    }
+
+    @PostConstruct
+    void start() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepo.findLiveJtis(now).forEach(filter::add);
+        lastSync = now;
+        lastRotation = System.currentTimeMillis();
+        running = true;
+        refresher = Thread.ofPlatform().name("token-revocations").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        refresher.interrupt();
+        refresher.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public void revoke(String jti, Long userId, Date expiresAt) {
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        revokedTokenRepo.save(RevokedToken.builder()
+                .jti(jti)
+                .userId(userId)
+                .expiresAt(expiry)
+                .revokedAt(LocalDateTime.now())
+                .build());
+        filter.add(jti);
+        confirmed.put(jti, expiresAt.getTime());
+        revoked.increment();
+    }
+
+    // tokens without a jti were issued before revocation existed and cannot be revoked one by one
+    public boolean isRevoked(String jti) {
+        checks.increment();
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        filterHits.increment();
+        if (confirmed.containsKey(jti)) {
+            rejected.increment();
+            return true;
+        }
+        exactLookups.increment();
+        Optional<RevokedToken> row = revokedTokenRepo.findById(jti);
+        if (row.isEmpty()) {
+            falsePositives.increment();
+            return false;
+        }
+        confirmed.put(jti, row.get().getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        rejected.increment();
+        return true;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(refreshIntervalMillis);
+                sync();
+                if (System.currentTimeMillis() - lastRotation >= tokenLifetimeMillis) {
+                    rotate();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Refreshing token revocations failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepo.findJtisRevokedAfter(lastSync.minusSeconds(SYNC_OVERLAP_SECONDS)).forEach(filter::add);
+        lastSync = now;
+    }
+
+    private void rotate() {
+        filter.rotate();
+        lastRotation = System.currentTimeMillis();
+        long now = lastRotation;
+        confirmed.values().removeIf(expiresAt -> expiresAt < now);
+        int deleted = revokedTokenRepo.deleteExpired(LocalDateTime.now());
+        log.info("Rotated token revocation filter, deleted {} expired revocations", deleted);
+    }
+
+    @Override
+    public String getName() {
+        return "token-revocation";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("filterBits", filter.bitsPerGeneration());
+        stats.put("filterHashes", filter.hashFunctions());
+        stats.put("checks", checks.sum());
+        stats.put("filterHits", filterHits.sum());
+        stats.put("exactLookups", exactLookups.sum());
+        stats.put("falsePositives", falsePositives.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("revoked", revoked.sum());
+        stats.put("confirmedCached", confirmed.size());
+        return stats;
+    }
+}
@@ -1,6 +1,10 @@
 package com.phegon.phegonbank.security;
 
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import com.phegon.phegonbank.role.entity.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,12 +15,20 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Service
-public class TokenService {
+public class TokenService implements MetricsSource {
+
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
 
     private SecretKey key;
+    private JwtParser parser; // immutable and thread safe, built once
+    private VerifiedTokenCache verifiedTokens; // null when jwt.verified-cache-size is 0
 
     @Value("${jwt.secret.string}")
     private String JWT_SECRET;
@@ -24,39 +36,84 @@ public class TokenService {
     @Value("${jwt.expiration}")
     private long EXPIRATION_TIME;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int VERIFIED_CACHE_SIZE;
+
     @PostConstruct
     private void init(){
         byte[] keyBytes = JWT_SECRET.getBytes(StandardCharsets.UTF_8);
         this.key = new SecretKeySpec(keyBytes, 0, keyBytes.length, "HmacSHA256"); // hash algorithm
-
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verifiedTokens = VERIFIED_CACHE_SIZE > 0 ? new VerifiedTokenCache(VERIFIED_CACHE_SIZE) : null;
     }
 
-    public String generateToken(String email){
+    // user id and role names travel in the token, so authenticating a request needs no user lookup
+    public String generateToken(User user){
         return Jwts.builder()
-                .subject(email)
+                .id(UUID.randomUUID().toString()) // jti, what TokenRevocations revokes
+                .subject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, user.getRoles().stream().map(Role::getName).toList())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis()+EXPIRATION_TIME))
                 .signWith(key)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token){
-        return extractClaims(token, Claims::getSubject);
+    /**
+     * Checks signature and expiry and returns the claims. A token verified before is answered from
+     * the cache until it expires, without another HMAC or JSON parse.
+     * Throws io.jsonwebtoken.JwtException (ExpiredJwtException included) for a token that does not verify.
+     */
+    public Claims verify(String token) {
+        if (verifiedTokens == null) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+        VerifiedTokenCache.TokenKey cacheKey = VerifiedTokenCache.keyOf(token);
+        Claims claims = verifiedTokens.get(cacheKey, System.currentTimeMillis());
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            verifiedTokens.put(cacheKey, claims);
+        }
+        return claims;
     }
 
-    private <T> T extractClaims(String token, Function<Claims, T> claimsTFunction) {
-        return claimsTFunction.apply(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload());
+    // null for a token issued before user id and roles were claims; the caller has to look the user up
+    public TokenPrincipal principalOf(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (userId == null || roles == null) {
+            return null;
+        }
+        return new TokenPrincipal(userId, claims.getSubject(), roles.stream().map(String::valueOf).toList());
+    }
 
+    public String getUsernameFromToken(String token){
+        return verify(token).getSubject();
     }
 
+    // verify() already rejects expired tokens
     public boolean isTokenValid(String token, UserDetails userDetails)
     {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return verify(token).getSubject().equals(userDetails.getUsername());
+    }
+
+    @Override
+    public String getName() {
+        return "jwt-verification";
     }
 
-    private boolean isTokenExpired(String token){
-        return extractClaims(token, Claims::getExpiration).before(new Date());
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cacheEnabled", verifiedTokens != null);
+        if (verifiedTokens != null) {
+            stats.put("cachedTokens", verifiedTokens.size());
+            stats.put("hits", verifiedTokens.hits());
+            stats.put("misses", verifiedTokens.misses());
+            stats.put("evictions", verifiedTokens.evictions());
+        }
+        return stats;
     }
 
 }
@@ -0,0 +1,143 @@
+package com.phegon.phegonbank.security;
+
+import com.phegon.phegonbank.auth_users.events.UserChangedEvent;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * UserSnapshots by email, at most bank.security.user-cache.max-size of them, each for at most
+ * bank.security.user-cache.ttl-ms. Entries are dropped on UserChangedEvent once the change has
+ * committed (or straight away when it was made outside a transaction), so a login or request right
+ * after a password or role change sees the new state; the TTL bounds staleness for changes made
+ * behind the application's back. When full, expired entries go first, then arbitrary ones.
+ * <p>
+ * A load that read the row before a change committed must not put the old state back after the
+ * invalidation. Callers take generation(email) before reading the database and pass it to put(),
+ * which drops the snapshot if that email was invalidated in between. Generations are kept per
+ * stripe of emails, so memory stays fixed; a collision only means one load is not cached.
+ */
+@Component
+public class UserDetailsCache implements MetricsSource {
+
+    private static final int GENERATION_STRIPES = 1024; // power of two
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder staleLoads = new LongAdder();
+
+    public UserDetailsCache(@Value("${bank.security.user-cache.max-size:10000}") int maxSize,
+                            @Value("${bank.security.user-cache.ttl-ms:300000}") long ttlMillis) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+    }
+
+    public UserSnapshot get(String email) {
+        Entry entry = entries.get(email);
+        if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            return entry.snapshot;
+        }
+        if (entry != null && entries.remove(email, entry)) {
+            expirations.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    // take before reading the user from the database, hand to put()
+    public long generation(String email) {
+        return generations.get(stripe(email));
+    }
+
+    public void put(UserSnapshot snapshot, long generation) {
+        if (maxSize == 0 || ttlNanos == 0) {
+            return;
+        }
+        String email = snapshot.email();
+        if (generation(email) != generation) {
+            staleLoads.increment();
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            makeRoom();
+        }
+        Entry entry = new Entry(snapshot, System.nanoTime());
+        entries.put(email, entry);
+        // an invalidation between the check above and the put has already run its remove, undo ours
+        if (generation(email) != generation && entries.remove(email, entry)) {
+            staleLoads.increment();
+        }
+    }
+
+    // generation first, then the entries, so a concurrent put() either sees the new generation or gets removed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidations.increment();
+        if (event.email() == null) {
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations.incrementAndGet(i);
+            }
+            entries.clear();
+        } else {
+            generations.incrementAndGet(stripe(event.email()));
+            entries.remove(event.email());
+        }
+    }
+
+    private static int stripe(String email) {
+        int h = email.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void makeRoom() {
+        long now = System.nanoTime();
+        if (entries.values().removeIf(entry -> now - entry.loadedAt >= ttlNanos)) {
+            expirations.increment();
+        }
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "user-details-cache";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("staleLoads", staleLoads.sum());
+        return stats;
+    }
+
+    private record Entry(UserSnapshot snapshot, long loadedAt) {
+    }
+}
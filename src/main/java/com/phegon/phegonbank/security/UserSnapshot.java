@@ -0,0 +1,19 @@
+package com.phegon.phegonbank.security;
+
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.role.entity.Role;
+
+import java.util.List;
+
+// what authentication needs from a user, copied out of the entity so it can be cached and shared
+public record UserSnapshot(Long id, String email, String password, boolean active, List<String> roles) {
+
+    public UserSnapshot {
+        roles = List.copyOf(roles);
+    }
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user.getId(), user.getEmail(), user.getPassword(), user.isActive(),
+                user.getRoles() == null ? List.of() : user.getRoles().stream().map(Role::getName).toList());
+    }
+}
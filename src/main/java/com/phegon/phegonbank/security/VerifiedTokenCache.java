@@ -0,0 +1,136 @@
+package com.phegon.phegonbank.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Claims of recently verified tokens, keyed by the SHA-256 of the token so the cache never holds a
+ * usable credential. Split into independently locked LRU segments so concurrent requests rarely
+ * wait on each other; an entry is only returned until the token's own expiry.
+ */
+final class VerifiedTokenCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    VerifiedTokenCache(int maxEntries) {
+        int perSegment = Math.max(1, maxEntries / SEGMENTS);
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    static TokenKey keyOf(String token) {
+        try {
+            return new TokenKey(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // every JRE ships it
+        }
+    }
+
+    Claims get(TokenKey key, long nowMillis) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null && entry.expiresAtMillis > nowMillis) {
+                hits.increment();
+                return entry.claims;
+            }
+            if (entry != null) {
+                segment.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(TokenKey key, Claims claims) {
+        if (claims.getExpiration() == null) {
+            return; // TokenService always sets one, a token without it is not worth keeping
+        }
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry(claims, claims.getExpiration().getTime()));
+        }
+    }
+
+    void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(TokenKey key) {
+        return segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+    }
+
+    record TokenKey(byte[] digest) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TokenKey key && Arrays.equals(digest, key.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(digest);
+        }
+    }
+
+    private record Entry(Claims claims, long expiresAtMillis) {
+    }
+
+    // access ordered LinkedHashMap, guarded by its own monitor
+    private final class Segment extends LinkedHashMap<TokenKey, Entry> {
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TokenKey, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
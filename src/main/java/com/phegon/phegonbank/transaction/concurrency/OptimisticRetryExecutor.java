@@ -0,0 +1,101 @@
+package com.phegon.phegonbank.transaction.concurrency;
+
+import com.phegon.phegonbank.exceptions.ConcurrentUpdateException;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a unit of work when it loses an optimistic version check (or a deadlock) against
+ * another writer. Every attempt must run in its own database transaction, so callers pass
+ * something that opens and commits one per call.
+ */
+@Component
+@Slf4j
+public class OptimisticRetryExecutor implements MetricsSource {
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder aborts = new LongAdder();
+    private final AtomicLongArray attemptsHistogram; // index = attempts needed to succeed - 1
+
+    public OptimisticRetryExecutor(@Value("${bank.transactions.optimistic.max-attempts:5}") int maxAttempts,
+                                   @Value("${bank.transactions.optimistic.backoff-ms:5}") long baseBackoffMillis,
+                                   @Value("${bank.transactions.optimistic.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.attemptsHistogram = new AtomicLongArray(this.maxAttempts);
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        operations.increment();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = work.get();
+                attemptsHistogram.incrementAndGet(attempt - 1);
+                return result;
+            } catch (ConcurrencyFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    aborts.increment();
+                    log.warn("Giving up after {} conflicting attempts: {}", attempt, e.getMessage());
+                    throw new ConcurrentUpdateException("Account was updated concurrently, please retry");
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    // full jitter: sleep a random time up to base * 2^(attempt-1), capped
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while retrying transaction");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "optimistic-retries";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        long ops = operations.sum();
+        long aborted = aborts.sum();
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < attemptsHistogram.length(); i++) {
+            histogram.put(String.valueOf(i + 1), attemptsHistogram.get(i));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("operations", ops);
+        stats.put("conflicts", conflicts.sum());
+        stats.put("retries", conflicts.sum() - aborted);
+        stats.put("aborts", aborted);
+        stats.put("abortRate", ops == 0 ? 0.0 : (double) aborted / ops);
+        stats.put("attemptsToSucceed", histogram);
+        return stats;
+    }
+}
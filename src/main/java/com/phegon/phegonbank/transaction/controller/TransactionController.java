@@ -1,6 +1,7 @@
 package com.phegon.phegonbank.transaction.controller;
 
 import com.phegon.phegonbank.res.Response;
+import com.phegon.phegonbank.transaction.dtos.BatchTransactionResult;
 import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
 import com.phegon.phegonbank.transaction.services.TransactionService;
 import jakarta.validation.Valid;
@@ -9,6 +10,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.json.GsonBuilderUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/transactions")
@@ -20,10 +23,24 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.createTransaction(transactionRequest));
     }
 
+    // @Valid on the list validates every item, a single invalid item rejects the whole batch with 400
+    @PostMapping("/batch")
+    public ResponseEntity<Response<List<BatchTransactionResult>>> createTransactions(@RequestBody @Valid List<TransactionRequest> transactionRequests) {
+        return ResponseEntity.ok(transactionService.createTransactions(transactionRequests));
+    }
+
     @GetMapping("/{accountNumber}")
     public ResponseEntity<Response<?>> getTransactionForMyAccount(@PathVariable String accountNumber,
                                                                   @RequestParam(defaultValue = "0") int page,
                                                                   @RequestParam(defaultValue = "50") int size) {
     return ResponseEntity.ok(transactionService.getTransactionsForAnAccount(accountNumber, page, size));
     }
+
+    // cursor paging: pass meta.nextCursor from the previous response to get the next (older) page
+    @GetMapping("/{accountNumber}/history")
+    public ResponseEntity<Response<?>> getTransactionHistory(@PathVariable String accountNumber,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(transactionService.getTransactionHistory(accountNumber, cursor, size));
+    }
 }
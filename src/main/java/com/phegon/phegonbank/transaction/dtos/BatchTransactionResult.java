@@ -0,0 +1,19 @@
+package com.phegon.phegonbank.transaction.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.phegon.phegonbank.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchTransactionResult {
+    private int index; // position of the item in the submitted batch
+    private TransactionStatus transactionStatus;
+    private String message; // failure reason, only set when the item was rejected
+}
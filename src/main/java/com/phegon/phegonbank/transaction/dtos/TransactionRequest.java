@@ -2,6 +2,7 @@ package com.phegon.phegonbank.transaction.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.phegon.phegonbank.enums.TransactionType;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -13,6 +14,7 @@ public class TransactionRequest {
     private TransactionType transactionType;
     private BigDecimal amount;
     private String accountNumber;
+    @Size(max = 255, message = "Description must be at most 255 characters") // transactions.description is VARCHAR(255)
     private String description;
 
     private String destinationAccountNumber;
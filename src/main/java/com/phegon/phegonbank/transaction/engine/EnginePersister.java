@@ -0,0 +1,120 @@
+package com.phegon.phegonbank.transaction.engine;
+
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.enums.TransactionStatus;
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.ledger.services.LedgerService;
+import com.phegon.phegonbank.transaction.entity.EngineCheckpoint;
+import com.phegon.phegonbank.transaction.entity.Transaction;
+import com.phegon.phegonbank.transaction.repo.EngineCheckpointRepo;
+import com.phegon.phegonbank.transaction.repo.TransactionRepo;
+import com.phegon.phegonbank.transaction.services.TransactionAlertWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes batches of durable log records to MySQL: one net balance change per account, the
+ * transaction rows, the journal legs, the alert outbox rows and the checkpoint, all in one database transaction.
+ * Records at or below the stored checkpoint are skipped, so replaying a batch is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.transactions.engine", havingValue = "IN_MEMORY")
+@RequiredArgsConstructor
+@Slf4j
+public class EnginePersister {
+
+    private final AccountRepo accountRepo;
+    private final TransactionRepo transactionRepo;
+    private final EngineCheckpointRepo checkpointRepo;
+    private final LedgerService ledgerService;
+    private final TransactionAlertWriter transactionAlertWriter;
+
+    @Transactional(readOnly = true)
+    public long checkpoint() {
+        return checkpointRepo.findById(EngineCheckpoint.ID)
+                .map(EngineCheckpoint::getLastSequence)
+                .orElse(0L);
+    }
+
+    @Transactional
+    public void persist(List<WalRecord> records) {
+        EngineCheckpoint checkpoint = checkpointRepo.findById(EngineCheckpoint.ID)
+                .orElseGet(() -> EngineCheckpoint.builder().id(EngineCheckpoint.ID).lastSequence(0).build());
+
+        List<WalRecord> pending = new ArrayList<>(records.size());
+        Map<String, BigDecimal> deltas = new TreeMap<>(); // account number order, same as every other locker
+        for (WalRecord record : records) {
+            if (record.getSequence() <= checkpoint.getLastSequence()) {
+                continue;
+            }
+            pending.add(record);
+            switch (record.getTransactionType()) {
+                case DEPOSIT -> deltas.merge(record.getAccountNumber(), record.getAmount(), BigDecimal::add);
+                case WITHDRAW -> deltas.merge(record.getAccountNumber(), record.getAmount().negate(), BigDecimal::add);
+                case TRANSFER -> {
+                    deltas.merge(record.getAccountNumber(), record.getAmount().negate(), BigDecimal::add);
+                    deltas.merge(record.getDestinationAccountNumber(), record.getAmount(), BigDecimal::add);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : accountRepo.findAllByAccountNumberInForUpdate(deltas.keySet())) {
+            accounts.put(account.getAccountNumber(), account);
+            account.setBalance(account.getBalance().add(deltas.get(account.getAccountNumber())));
+        }
+
+        List<Transaction> transactions = new ArrayList<>(pending.size());
+        for (WalRecord record : pending) {
+            Account account = accounts.get(record.getAccountNumber());
+            if (account == null) {
+                // the engine checks accounts exist before accepting, so this means the row was removed since
+                log.error("Account {} of log record {} no longer exists", record.getAccountNumber(), record.getSequence());
+                throw new DataIntegrityViolationException("Account " + record.getAccountNumber() + " not found");
+            }
+            transactions.add(toTransaction(record, account));
+        }
+
+        transactionRepo.insertAll(transactions);
+        ledgerService.post(pending.stream().map(WalRecord::toRequest).toList());
+
+        checkpoint.setLastSequence(pending.get(pending.size() - 1).getSequence());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepo.save(checkpoint);
+
+        transactionAlertWriter.writeAll(transactions, accounts);
+    }
+
+    private Transaction toTransaction(WalRecord record, Account account) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionType(record.getTransactionType());
+        transaction.setAmount(record.getAmount());
+        transaction.setDescription(record.getDescription());
+        transaction.setTransactionDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getTimestamp()), ZoneId.systemDefault()));
+        transaction.setTransactionStatus(TransactionStatus.SUCCESS);
+        transaction.setAccount(account);
+        if (record.getTransactionType() == TransactionType.TRANSFER) {
+            transaction.setSourceAccount(record.getAccountNumber());
+            transaction.setDestinationAccount(record.getDestinationAccountNumber());
+        }
+        return transaction;
+    }
+}
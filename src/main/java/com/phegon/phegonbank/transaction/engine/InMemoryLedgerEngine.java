@@ -0,0 +1,675 @@
+package com.phegon.phegonbank.transaction.engine;
+
+import com.phegon.phegonbank.account.repo.AccountBalanceSlotRepo;
+import com.phegon.phegonbank.account.repo.AccountBalanceView;
+import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.exceptions.BadRequestException;
+import com.phegon.phegonbank.exceptions.ConcurrentUpdateException;
+import com.phegon.phegonbank.exceptions.InsufficientBalanceException;
+import com.phegon.phegonbank.exceptions.InvalidTransactionException;
+import com.phegon.phegonbank.exceptions.NotFoundException;
+import com.phegon.phegonbank.exceptions.ServiceBusyException;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * High-throughput transaction core, enabled with bank.transactions.engine=IN_MEMORY.
+ * <p>
+ * Balances live in memory, split over partitions by account number; each partition has a single
+ * thread that owns its balances, so checks and updates need no locks. An accepted request is
+ * queued to the write-ahead log writer, which writes whatever has piled up since its last
+ * fsync in one batch (group commit) and only then completes the callers' futures. A persister
+ * thread applies durable records to MySQL in batches behind that, tracking its progress in
+ * engine_checkpoint; on startup everything in the log past the checkpoint is replayed into
+ * the database before new requests are accepted.
+ * <p>
+ * A transfer debits on the source partition, is queued to the log, then credits on the
+ * destination partition, so a record that spends credited money is always logged after the
+ * record that brought it in. If the log cannot be written the engine stops accepting
+ * requests; memory may then be ahead of the log and only a restart (which recovers from the
+ * log) brings it back. Balances read from the database lag the engine by the persister delay.
+ * <p>
+ * submit() bounds every field to what the log format and the database columns hold. Should a
+ * record still fail to encode, only that request fails and its balance change is undone in
+ * memory; nothing was logged for it. A logged record has been acknowledged and is never dropped:
+ * if the database refuses one for its data, the persister stops right before it, the checkpoint
+ * stays there and the engine stops accepting requests (503). The refused sequence is logged and
+ * reported as persistHaltedAtSequence; once the data is fixed, a restart replays from it.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.transactions.engine", havingValue = "IN_MEMORY")
+@Slf4j
+public class InMemoryLedgerEngine implements MetricsSource {
+
+    private static final int MAX_DESCRIPTION_LENGTH = 255;  // transactions.description VARCHAR(255)
+    private static final int MAX_AMOUNT_SCALE = 2;          // balances and journal amounts are DECIMAL(19, 2)
+    private static final int MAX_AMOUNT_INTEGER_DIGITS = 17;
+
+    private final AccountRepo accountRepo;
+    private final AccountBalanceSlotRepo slotRepo;
+    private final EnginePersister persister;
+
+    private final Path walDirectory;
+    private final long segmentBytes;
+    private final int walBatchSize;
+    private final int persistBatchSize;
+    private final int maxInFlight;
+    private final long timeoutMillis;
+
+    private final Partition[] partitions;
+    private final Set<String> knownAccounts = ConcurrentHashMap.newKeySet();
+    private final Set<String> loadedAccounts = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<PendingAppend> walQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<WalRecord> persistQueue = new LinkedBlockingQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private WriteAheadLog wal;
+    private long nextSequence; // log writer thread only
+    private Thread walWriter;
+    private Thread persisterThread;
+    private volatile boolean accepting;
+    private volatile boolean walStopping;
+    private volatile boolean persisterStopping;
+    private volatile Throwable walFailure;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder walBatches = new LongAdder();
+    private final LongAdder walRecords = new LongAdder();
+    private final LongAdder fsyncNanos = new LongAdder();
+    private final AtomicLong maxFsyncNanos = new AtomicLong();
+    private final LongAdder persistBatches = new LongAdder();
+    private final LongAdder persistFailures = new LongAdder();
+    private final LongAdder unloggedRecords = new LongAdder();
+    private volatile long loggedSequence;
+    private volatile long persistedSequence;
+    private volatile long persistHaltedAtSequence; // 0 while the persister runs
+    private volatile int walSegments;
+
+    public InMemoryLedgerEngine(AccountRepo accountRepo,
+                                AccountBalanceSlotRepo slotRepo,
+                                EnginePersister persister,
+                                @Value("${bank.engine.partitions:4}") int partitionCount,
+                                @Value("${bank.engine.wal-dir:./data/wal}") String walDirectory,
+                                @Value("${bank.engine.wal-segment-bytes:67108864}") long segmentBytes,
+                                @Value("${bank.engine.wal-batch-size:1000}") int walBatchSize,
+                                @Value("${bank.engine.persist-batch-size:500}") int persistBatchSize,
+                                @Value("${bank.engine.max-in-flight:10000}") int maxInFlight,
+                                @Value("${bank.engine.timeout-ms:10000}") long timeoutMillis) {
+        this.accountRepo = accountRepo;
+        this.slotRepo = slotRepo;
+        this.persister = persister;
+        this.walDirectory = Path.of(walDirectory);
+        this.segmentBytes = segmentBytes;
+        this.walBatchSize = Math.max(1, walBatchSize);
+        this.persistBatchSize = Math.max(1, persistBatchSize);
+        this.maxInFlight = maxInFlight;
+        this.timeoutMillis = timeoutMillis;
+
+        this.partitions = new Partition[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i);
+        }
+    }
+
+    @PostConstruct
+    void recover() throws IOException {
+        long checkpoint = persister.checkpoint();
+        List<WalRecord> replay = new ArrayList<>();
+        wal = new WriteAheadLog(walDirectory, segmentBytes);
+        long lastOnDisk = wal.open(checkpoint, replay::add);
+
+        // the database has to be caught up before balances are loaded from it
+        Refusal refusal = null;
+        for (int from = 0; refusal == null && from < replay.size(); from += persistBatchSize) {
+            refusal = persistBatch(replay.subList(from, Math.min(from + persistBatchSize, replay.size())));
+        }
+
+        nextSequence = Math.max(lastOnDisk, checkpoint) + 1;
+        loggedSequence = nextSequence - 1;
+        persistedSequence = refusal == null ? loggedSequence : refusal.record().getSequence() - 1;
+        wal.deleteUpTo(persistedSequence);
+        walSegments = wal.segmentCount();
+
+        if (refusal != null) {
+            // balances would load from a database behind the log, so nothing is started
+            haltPersister(refusal);
+            return;
+        }
+        walWriter = new Thread(this::runWalWriter, "engine-wal-writer");
+        persisterThread = new Thread(this::runPersister, "engine-persister");
+        walWriter.start();
+        persisterThread.start();
+        accepting = true;
+
+        log.info("In-memory ledger engine started with {} partitions, replayed {} log records past checkpoint {}",
+                partitions.length, replay.size(), checkpoint);
+    }
+
+    /**
+     * Validates the request and hands it to the owning partition. The future completes once
+     * the record is durable in the log (and, for transfers, the credit is applied), or
+     * exceptionally with the same exceptions the database path throws.
+     */
+    public CompletableFuture<Void> submit(TransactionRequest request) {
+        if (request.getTransactionType() == null) {
+            throw new InvalidTransactionException("Invalid transaction type");
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BadRequestException("Amount must be greater than zero");
+        }
+        BigDecimal amount = request.getAmount().stripTrailingZeros();
+        if (amount.scale() > MAX_AMOUNT_SCALE || amount.precision() - amount.scale() > MAX_AMOUNT_INTEGER_DIGITS) {
+            throw new BadRequestException("Amount must have at most " + MAX_AMOUNT_INTEGER_DIGITS
+                    + " digits before and " + MAX_AMOUNT_SCALE + " after the decimal point");
+        }
+        if (request.getDescription() != null && request.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            throw new BadRequestException("Description must be at most " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+        boolean transfer = request.getTransactionType() == TransactionType.TRANSFER;
+        if (transfer && request.getDestinationAccountNumber() == null) {
+            throw new BadRequestException("Destination account number is required");
+        }
+        requireAccount(request.getAccountNumber());
+        if (transfer) {
+            requireAccount(request.getDestinationAccountNumber());
+        }
+
+        if (!accepting) {
+            throw new ServiceBusyException("Transaction engine is not accepting requests");
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            throw new ConcurrentUpdateException("Transaction engine is busy, please retry");
+        }
+        submitted.increment();
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        done.whenComplete((result, error) -> inFlight.decrementAndGet());
+
+        WalRecord record = WalRecord.of(request);
+        String destination = request.getDestinationAccountNumber();
+        if (transfer && !destination.equals(request.getAccountNumber()) && !loadedAccounts.contains(destination)) {
+            // load the destination first so the credit after the debit can't fail on a database read
+            partitionFor(destination).run(done, partition -> {
+                partition.balance(destination);
+                partitionFor(record.getAccountNumber()).run(done, source -> apply(source, record, done));
+            });
+        } else {
+            partitionFor(record.getAccountNumber()).run(done, partition -> apply(partition, record, done));
+        }
+        return done;
+    }
+
+    // blocking variant used by the service; unwraps failures back to the original exception
+    public void execute(TransactionRequest request) {
+        await(submit(request));
+    }
+
+    public void await(CompletableFuture<Void> future) {
+        try {
+            future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Transaction failed", e.getCause());
+        } catch (TimeoutException e) {
+            // the record may still become durable, so this must not look like a safe retry
+            throw new IllegalStateException("Transaction outcome unknown, check the account history before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the transaction to be logged");
+        }
+    }
+
+    // runs on the source account's partition thread
+    private void apply(Partition partition, WalRecord record, CompletableFuture<Void> done) {
+        String accountNumber = record.getAccountNumber();
+        BigDecimal amount = record.getAmount();
+        BigDecimal balance = partition.balance(accountNumber);
+
+        switch (record.getTransactionType()) {
+            case DEPOSIT -> {
+                partition.balances.put(accountNumber, balance.add(amount));
+                append(record, done);
+            }
+            case WITHDRAW -> {
+                if (balance.compareTo(amount) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                partition.balances.put(accountNumber, balance.subtract(amount));
+                append(record, done);
+            }
+            case TRANSFER -> {
+                if (balance.compareTo(amount) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                String destination = record.getDestinationAccountNumber();
+                if (destination.equals(accountNumber)) {
+                    append(record, done); // transfer to self leaves the balance unchanged
+                    return;
+                }
+                partition.balances.put(accountNumber, balance.subtract(amount));
+
+                CompletableFuture<Void> durable = new CompletableFuture<>();
+                append(record, durable);
+
+                CompletableFuture<Void> credited = new CompletableFuture<>();
+                partitionFor(destination).run(credited, destPartition -> {
+                    destPartition.balances.put(destination, destPartition.balance(destination).add(amount));
+                    credited.complete(null);
+                });
+                CompletableFuture.allOf(durable, credited).whenComplete((result, error) -> {
+                    if (error != null) {
+                        done.completeExceptionally(error instanceof CompletionException
+                                ? error.getCause() : error);
+                    } else {
+                        done.complete(null);
+                    }
+                });
+            }
+            default -> throw new InvalidTransactionException("Invalid transaction type");
+        }
+    }
+
+    private void append(WalRecord record, CompletableFuture<Void> durable) {
+        Throwable failure = walFailure;
+        if (failure != null) {
+            durable.completeExceptionally(new IllegalStateException("Write-ahead log unavailable", failure));
+            return;
+        }
+        walQueue.add(new PendingAppend(record, durable));
+    }
+
+    private void runWalWriter() {
+        List<PendingAppend> batch = new ArrayList<>(walBatchSize);
+        List<PendingAppend> logged = new ArrayList<>(walBatchSize);
+        List<WalRecord> records = new ArrayList<>(walBatchSize);
+        List<byte[]> payloads = new ArrayList<>(walBatchSize);
+        long cleanedUpTo = persistedSequence;
+
+        while (true) {
+            PendingAppend first;
+            try {
+                first = walQueue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (walStopping) {
+                    return;
+                }
+                continue;
+            }
+
+            // everything that arrived while the previous fsync was running goes out together
+            batch.add(first);
+            walQueue.drainTo(batch, walBatchSize - 1);
+            for (PendingAppend pending : batch) {
+                WalRecord record = pending.record.withSequence(nextSequence);
+                byte[] payload;
+                try {
+                    payload = WriteAheadLog.encode(record);
+                } catch (IOException | RuntimeException e) {
+                    rejectUnlogged(pending, e); // fails this request only, the log itself is fine
+                    continue;
+                }
+                nextSequence++;
+                logged.add(pending);
+                records.add(record);
+                payloads.add(payload);
+            }
+            if (records.isEmpty()) {
+                batch.clear();
+                logged.clear();
+                continue;
+            }
+
+            long start = System.nanoTime();
+            try {
+                wal.append(payloads, records.get(0).getSequence());
+            } catch (IOException | RuntimeException e) {
+                failWal(e, batch);
+                return;
+            }
+            long nanos = System.nanoTime() - start;
+            fsyncNanos.add(nanos);
+            maxFsyncNanos.accumulateAndGet(nanos, Math::max);
+            walBatches.increment();
+            walRecords.add(records.size());
+            loggedSequence = records.get(records.size() - 1).getSequence();
+
+            persistQueue.addAll(records);
+            for (PendingAppend pending : logged) {
+                pending.durable.complete(null);
+            }
+            batch.clear();
+            logged.clear();
+            records.clear();
+            payloads.clear();
+
+            long persisted = persistedSequence;
+            if (persisted > cleanedUpTo) {
+                wal.deleteUpTo(persisted);
+                walSegments = wal.segmentCount();
+                cleanedUpTo = persisted;
+            }
+        }
+    }
+
+    private void rejectUnlogged(PendingAppend pending, Throwable error) {
+        WalRecord record = pending.record;
+        log.error("Transaction on account {} could not be written to the log and is rejected: {}",
+                record.getAccountNumber(), error.toString());
+        unloggedRecords.increment();
+        undo(record);
+        pending.durable.completeExceptionally(new IllegalStateException("Transaction could not be recorded", error));
+    }
+
+    private void failWal(Throwable error, List<PendingAppend> batch) {
+        log.error("Write-ahead log append failed, the engine stops accepting transactions until restarted", error);
+        walFailure = error;
+        accepting = false;
+
+        IllegalStateException failure = new IllegalStateException("Write-ahead log unavailable", error);
+        batch.forEach(pending -> pending.durable.completeExceptionally(failure));
+        List<PendingAppend> queued = new ArrayList<>();
+        walQueue.drainTo(queued);
+        queued.forEach(pending -> pending.durable.completeExceptionally(failure));
+    }
+
+    private void runPersister() {
+        List<WalRecord> batch = new ArrayList<>(persistBatchSize);
+        while (true) {
+            WalRecord first;
+            try {
+                first = persistQueue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (persisterStopping) {
+                    return;
+                }
+                continue;
+            }
+
+            batch.add(first);
+            persistQueue.drainTo(batch, persistBatchSize - 1);
+            if (!persistWithRetry(batch)) {
+                return; // halted, or shutting down with the database unavailable; recovery replays from the log
+            }
+            persistedSequence = batch.get(batch.size() - 1).getSequence();
+            persistBatches.increment();
+            batch.clear();
+        }
+    }
+
+    private boolean persistWithRetry(List<WalRecord> batch) {
+        long backoffMillis = 100;
+        while (true) {
+            try {
+                Refusal refusal = persistBatch(batch);
+                if (refusal != null) {
+                    persistedSequence = refusal.record().getSequence() - 1;
+                    haltPersister(refusal);
+                    return false;
+                }
+                return true;
+            } catch (RuntimeException e) {
+                persistFailures.increment();
+                log.warn("Persisting {} log records failed, retrying in {} ms: {}", batch.size(), backoffMillis, e.getMessage());
+                if (persisterStopping) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 5000);
+            }
+        }
+    }
+
+    /**
+     * Persists the batch. When the database refuses it for its data rather than for being
+     * unavailable, the records go in one at a time up to the refused one, which is returned; the
+     * checkpoint then sits right before it. Anything else is thrown for the caller to retry, and
+     * a retry skips what is already below the checkpoint.
+     */
+    private Refusal persistBatch(List<WalRecord> batch) {
+        try {
+            persister.persist(batch);
+            return null;
+        } catch (RuntimeException e) {
+            if (!refusedForData(e)) {
+                throw e;
+            }
+        }
+        for (WalRecord record : batch) {
+            try {
+                persister.persist(List.of(record));
+            } catch (RuntimeException e) {
+                if (!refusedForData(e)) {
+                    throw e;
+                }
+                return new Refusal(record, e);
+            }
+        }
+        return null; // refused only together, every record went in on its own
+    }
+
+    // constraint and data errors will fail the same way every time; resource errors (connection, permissions) may not
+    private static boolean refusedForData(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof NonTransientDataAccessResourceException);
+    }
+
+    // the record was acknowledged to its caller, so it is kept in the log for an operator instead of being skipped
+    private void haltPersister(Refusal refusal) {
+        WalRecord record = refusal.record();
+        persistHaltedAtSequence = record.getSequence();
+        accepting = false;
+        log.error("Log record {} ({} {} on {}, destination {}) was refused by the database. The persister has stopped "
+                        + "at checkpoint {} and the engine no longer accepts transactions; fix the data and restart "
+                        + "to replay the log from this record",
+                record.getSequence(), record.getTransactionType(), record.getAmount(), record.getAccountNumber(),
+                record.getDestinationAccountNumber(), record.getSequence() - 1, refusal.error());
+    }
+
+    /**
+     * Reverses the balance change of a record that never made it into the log, so memory matches
+     * the log again. Queued on the partitions after the change itself, and additions commute, so
+     * order does not matter.
+     */
+    private void undo(WalRecord record) {
+        BigDecimal amount = record.getAmount();
+        switch (record.getTransactionType()) {
+            case DEPOSIT -> adjust(record.getAccountNumber(), amount.negate());
+            case WITHDRAW -> adjust(record.getAccountNumber(), amount);
+            case TRANSFER -> {
+                if (!record.getDestinationAccountNumber().equals(record.getAccountNumber())) {
+                    adjust(record.getAccountNumber(), amount);
+                    adjust(record.getDestinationAccountNumber(), amount.negate());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void adjust(String accountNumber, BigDecimal delta) {
+        partitionFor(accountNumber).run(new CompletableFuture<>(), partition -> {
+            BigDecimal balance = partition.balances.get(accountNumber);
+            if (balance != null) {
+                partition.balances.put(accountNumber, balance.add(delta));
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException, IOException {
+        accepting = false;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        for (Partition partition : partitions) {
+            partition.executor.shutdown();
+        }
+        for (Partition partition : partitions) {
+            partition.executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        walStopping = true;
+        if (walWriter != null) {
+            walWriter.join(timeoutMillis);
+        }
+        persisterStopping = true;
+        if (persisterThread != null) {
+            persisterThread.join(timeoutMillis);
+        }
+        wal.close();
+        log.info("In-memory ledger engine stopped at log sequence {}, persisted up to {}", loggedSequence, persistedSequence);
+    }
+
+    private void requireAccount(String accountNumber) {
+        if (accountNumber == null) {
+            throw new NotFoundException("Account not found");
+        }
+        if (!knownAccounts.contains(accountNumber)) {
+            if (accountRepo.findBalanceByAccountNumber(accountNumber).isEmpty()) {
+                throw new NotFoundException("Account not found");
+            }
+            knownAccounts.add(accountNumber); // accounts are never deleted, only closed
+        }
+    }
+
+    private Partition partitionFor(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return partitions[Math.floorMod(h ^ (h >>> 16), partitions.length)];
+    }
+
+    @Override
+    public String getName() {
+        return "ledger-engine";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        long batches = walBatches.sum();
+        long records = walRecords.sum();
+        long logged = loggedSequence;
+        long persisted = persistedSequence;
+
+        List<Integer> queueDepths = new ArrayList<>(partitions.length);
+        for (Partition partition : partitions) {
+            queueDepths.add(partition.executor.getQueue().size());
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("accepting", accepting);
+        stats.put("walFailed", walFailure != null);
+        stats.put("submitted", submitted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("inFlight", inFlight.get());
+        stats.put("walBatches", batches);
+        stats.put("walRecords", records);
+        stats.put("avgRecordsPerFsync", batches == 0 ? 0.0 : (double) records / batches);
+        stats.put("avgFsyncMicros", batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(fsyncNanos.sum() / batches));
+        stats.put("maxFsyncMicros", TimeUnit.NANOSECONDS.toMicros(maxFsyncNanos.get()));
+        stats.put("walQueued", walQueue.size());
+        stats.put("walSegments", walSegments);
+        stats.put("loggedSequence", logged);
+        stats.put("persistedSequence", persisted);
+        stats.put("persisterLag", logged - persisted);
+        stats.put("persistBatches", persistBatches.sum());
+        stats.put("persistFailures", persistFailures.sum());
+        stats.put("unloggedRecords", unloggedRecords.sum());
+        stats.put("persistHaltedAtSequence", persistHaltedAtSequence);
+        stats.put("accountsInMemory", loadedAccounts.size());
+        stats.put("partitionQueueDepths", queueDepths);
+        return stats;
+    }
+
+    private record PendingAppend(WalRecord record, CompletableFuture<Void> durable) {
+    }
+
+    private record Refusal(WalRecord record, RuntimeException error) {
+    }
+
+    private interface PartitionTask {
+        void run(Partition partition);
+    }
+
+    private final class Partition {
+        private final ThreadPoolExecutor executor;
+        private final Map<String, BigDecimal> balances = new HashMap<>(); // partition thread only
+
+        Partition(int index) {
+            // unbounded on purpose: credits posted by other partitions must never be rejected,
+            // admission control happens in submit()
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, "engine-partition-" + index));
+        }
+
+        void run(CompletableFuture<Void> onFailure, PartitionTask task) {
+            executor.execute(() -> {
+                try {
+                    task.run(this);
+                } catch (RuntimeException e) {
+                    onFailure.completeExceptionally(e);
+                }
+            });
+        }
+
+        // loaded once from the database, after that this partition is the only writer
+        BigDecimal balance(String accountNumber) {
+            BigDecimal balance = balances.get(accountNumber);
+            if (balance == null) {
+                AccountBalanceView account = accountRepo.findBalanceByAccountNumber(accountNumber)
+                        .orElseThrow(() -> new NotFoundException("Account not found"));
+                balance = account.getBalance().add(slotRepo.sumByAccountId(account.getId()));
+                balances.put(accountNumber, balance);
+                loadedAccounts.add(accountNumber);
+            }
+            return balance;
+        }
+    }
+}
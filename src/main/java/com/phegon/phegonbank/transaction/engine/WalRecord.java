@@ -0,0 +1,41 @@
+package com.phegon.phegonbank.transaction.engine;
+
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// one accepted transaction as it is written to the write-ahead log; sequence is assigned by the log writer
+@Getter
+@AllArgsConstructor
+public final class WalRecord {
+    private final long sequence;
+    private final long timestamp;
+    private final TransactionType transactionType;
+    private final BigDecimal amount;
+    private final String accountNumber;
+    private final String destinationAccountNumber;
+    private final String description;
+
+    static WalRecord of(TransactionRequest request) {
+        return new WalRecord(0, System.currentTimeMillis(), request.getTransactionType(), request.getAmount(),
+                request.getAccountNumber(), request.getDestinationAccountNumber(), request.getDescription());
+    }
+
+    WalRecord withSequence(long sequence) {
+        return new WalRecord(sequence, timestamp, transactionType, amount,
+                accountNumber, destinationAccountNumber, description);
+    }
+
+    public TransactionRequest toRequest() {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionType(transactionType);
+        request.setAmount(amount);
+        request.setAccountNumber(accountNumber);
+        request.setDestinationAccountNumber(destinationAccountNumber);
+        request.setDescription(description);
+        return request;
+    }
+}
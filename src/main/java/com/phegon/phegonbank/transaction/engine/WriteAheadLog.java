@@ -0,0 +1,223 @@
+package com.phegon.phegonbank.transaction.engine;
+
+import com.phegon.phegonbank.enums.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of accepted transactions, split into segment files named after the first
+ * sequence they contain (wal-00000000000000000001.log).
+ * Each record is framed as [length][crc32][payload]; a batch of records is written with one
+ * write call and made durable with one fsync, which is where group commit gets its throughput.
+ * Not thread safe, only the engine's log writer thread touches it.
+ */
+@Slf4j
+class WriteAheadLog implements AutoCloseable {
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final TreeMap<Long, Path> segments = new TreeMap<>(); // first sequence -> file
+
+    private FileChannel active;
+
+    WriteAheadLog(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Reads every segment in order and hands records with a sequence above afterSequence to the
+     * consumer. A torn or corrupt record at the end of the last segment (crash mid-write) is cut
+     * off; corruption anywhere else is an error. Returns the highest sequence found on disk.
+     */
+    long open(long afterSequence, Consumer<WalRecord> consumer) throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith(PREFIX)
+                            && file.getFileName().toString().endsWith(SUFFIX))
+                    .forEach(file -> segments.put(firstSequence(file), file));
+        }
+
+        long lastSequence = 0;
+        for (var iterator = segments.entrySet().iterator(); iterator.hasNext(); ) {
+            Path file = iterator.next().getValue();
+            boolean last = !iterator.hasNext();
+
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            long validBytes = 0;
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                if (checksum != crc(payload)) {
+                    break;
+                }
+                WalRecord record = decode(payload);
+                lastSequence = record.getSequence();
+                if (record.getSequence() > afterSequence) {
+                    consumer.accept(record);
+                }
+                validBytes = buffer.position();
+            }
+
+            if (validBytes < Files.size(file)) {
+                if (!last) {
+                    throw new IOException("Write-ahead log segment " + file + " is corrupt at byte " + validBytes);
+                }
+                log.warn("Truncating torn tail of {} at byte {} (was {})", file, validBytes, Files.size(file));
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                    channel.force(true);
+                }
+            }
+        }
+
+        if (segments.isEmpty()) {
+            rotate(Math.max(lastSequence, afterSequence) + 1);
+        } else {
+            active = FileChannel.open(segments.lastEntry().getValue(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return lastSequence;
+    }
+
+    /**
+     * One write and one fsync for the whole batch. Payloads come from encode(), which the writer
+     * calls per record first so a record that cannot be encoded fails on its own;
+     * firstSequence is the sequence of the first payload.
+     */
+    void append(List<byte[]> payloads, long firstSequence) throws IOException {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        if (active.size() >= segmentBytes) {
+            rotate(firstSequence);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payloads.size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (byte[] payload : payloads) {
+            out.writeInt(payload.length);
+            out.writeInt(crc(payload));
+            out.write(payload);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+        active.force(false);
+    }
+
+    // segments whose every record is at or below the checkpoint are already in the database
+    void deleteUpTo(long checkpointSequence) {
+        List<Long> firstSequences = new ArrayList<>(segments.keySet());
+        // the last segment is the active one and is never deleted
+        for (int i = 0; i + 1 < firstSequences.size(); i++) {
+            long nextFirst = firstSequences.get(i + 1);
+            if (nextFirst - 1 > checkpointSequence) {
+                break;
+            }
+            Path file = segments.remove(firstSequences.get(i));
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete write-ahead log segment {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (active != null) {
+            active.force(true);
+            active.close();
+        }
+    }
+
+    private void rotate(long firstSequence) throws IOException {
+        if (active != null) {
+            active.force(true);
+            active.close();
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        active = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.put(firstSequence, file);
+    }
+
+    private static long firstSequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // writeUTF limits each string to 65535 bytes, InMemoryLedgerEngine.submit() keeps fields far below that
+    static byte[] encode(WalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(record.getSequence());
+        out.writeLong(record.getTimestamp());
+        out.writeByte(record.getTransactionType().ordinal());
+        out.writeUTF(record.getAmount().toPlainString());
+        out.writeUTF(record.getAccountNumber());
+        writeNullable(out, record.getDestinationAccountNumber());
+        writeNullable(out, record.getDescription());
+        return bytes.toByteArray();
+    }
+
+    private static WalRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        long timestamp = in.readLong();
+        TransactionType type = TransactionType.values()[in.readByte()];
+        BigDecimal amount = new BigDecimal(in.readUTF());
+        String accountNumber = in.readUTF();
+        String destination = readNullable(in);
+        String description = readNullable(in);
+        return new WalRecord(sequence, timestamp, type, amount, accountNumber, destination, description);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.phegon.phegonbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// single row holding the last write-ahead log sequence the in-memory engine has written to the database
+@Entity
+@Data
+@Builder
+@Table(name = "engine_checkpoint")
+@AllArgsConstructor
+@NoArgsConstructor
+public class EngineCheckpoint {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long lastSequence;
+
+    private LocalDateTime updatedAt;
+}
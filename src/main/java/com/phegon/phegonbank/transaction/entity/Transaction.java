@@ -20,7 +20,9 @@ import java.util.List;
 @Entity
 @Data
 @Builder
-@Table(name="transactions")
+@Table(name="transactions", indexes = {
+        @Index(name = "idx_txn_account_date_id", columnList = "account_id, transaction_date, id")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 public class Transaction {
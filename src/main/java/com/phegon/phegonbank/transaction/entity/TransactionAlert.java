@@ -0,0 +1,46 @@
+package com.phegon.phegonbank.transaction.entity;
+
+import com.phegon.phegonbank.enums.EntryDirection;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// one pending credit/debit alert email, written with the balance change and removed once dispatched
+@Entity
+@Data
+@Builder
+@Table(name = "transaction_alert_outbox")
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionAlert {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private EntryDirection direction;
+
+    @Column(nullable = false, length = 15)
+    private String accountNumber;
+
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal amount;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private LocalDateTime transactionDate;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
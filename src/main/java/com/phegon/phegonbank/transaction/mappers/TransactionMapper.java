@@ -0,0 +1,14 @@
+package com.phegon.phegonbank.transaction.mappers;
+
+import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
+import com.phegon.phegonbank.transaction.entity.Transaction;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+// implementation is generated at compile time; the account is never serialized, so it is not loaded
+@Mapper(componentModel = "spring")
+public interface TransactionMapper {
+
+    @Mapping(target = "account", ignore = true)
+    TransactionDTO toDto(Transaction transaction);
+}
@@ -0,0 +1,7 @@
+package com.phegon.phegonbank.transaction.repo;
+
+import com.phegon.phegonbank.transaction.entity.EngineCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EngineCheckpointRepo extends JpaRepository<EngineCheckpoint, Long> {
+}
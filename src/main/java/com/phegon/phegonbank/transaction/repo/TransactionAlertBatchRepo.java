@@ -0,0 +1,10 @@
+package com.phegon.phegonbank.transaction.repo;
+
+import com.phegon.phegonbank.transaction.entity.TransactionAlert;
+
+import java.util.List;
+
+public interface TransactionAlertBatchRepo {
+    // plain JDBC batch insert, same reason as TransactionBatchRepo
+    void insertAll(List<TransactionAlert> alerts);
+}
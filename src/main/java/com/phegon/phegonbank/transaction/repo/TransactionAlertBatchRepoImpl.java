@@ -0,0 +1,43 @@
+package com.phegon.phegonbank.transaction.repo;
+
+import com.phegon.phegonbank.transaction.entity.TransactionAlert;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TransactionAlertBatchRepoImpl implements TransactionAlertBatchRepo {
+
+    private static final String INSERT_SQL = "insert into transaction_alert_outbox " +
+            "(direction, account_number, amount, balance, transaction_date, attempts, created_at) " +
+            "values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${bank.transactions.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Override
+    public void insertAll(List<TransactionAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, alerts, jdbcBatchSize, (ps, alert) -> {
+            ps.setString(1, alert.getDirection().name());
+            ps.setString(2, alert.getAccountNumber());
+            ps.setBigDecimal(3, alert.getAmount());
+            if (alert.getBalance() == null) {
+                ps.setNull(4, Types.DECIMAL);
+            } else {
+                ps.setBigDecimal(4, alert.getBalance());
+            }
+            ps.setTimestamp(5, Timestamp.valueOf(alert.getTransactionDate()));
+            ps.setInt(6, alert.getAttempts());
+            ps.setTimestamp(7, Timestamp.valueOf(alert.getCreatedAt()));
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package com.phegon.phegonbank.transaction.repo;
+
+import com.phegon.phegonbank.transaction.entity.TransactionAlert;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+
+public interface TransactionAlertRepo extends JpaRepository<TransactionAlert, Long>, TransactionAlertBatchRepo {
+
+    // oldest first; lock timeout -2 is SKIP LOCKED, so several instances can drain the outbox side by side
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select a from TransactionAlert a order by a.id")
+    List<TransactionAlert> findOldestForDispatch(Limit limit);
+}
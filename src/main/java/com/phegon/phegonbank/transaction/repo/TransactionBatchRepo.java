@@ -0,0 +1,10 @@
+package com.phegon.phegonbank.transaction.repo;
+
+import com.phegon.phegonbank.transaction.entity.Transaction;
+
+import java.util.List;
+
+public interface TransactionBatchRepo {
+    // plain JDBC batch insert, IDENTITY ids stop Hibernate from batching these itself
+    void insertAll(List<Transaction> transactions);
+}
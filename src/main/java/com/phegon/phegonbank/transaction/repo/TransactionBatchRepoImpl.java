@@ -0,0 +1,48 @@
+package com.phegon.phegonbank.transaction.repo;
+
+import com.phegon.phegonbank.transaction.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TransactionBatchRepoImpl implements TransactionBatchRepo {
+
+    private static final String INSERT_SQL = "insert into transactions " +
+            "(amount, transaction_type, transaction_date, description, transaction_status, " +
+            "account_id, source_account, destination_account) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${bank.transactions.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    @Override
+    public void insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, jdbcBatchSize, (ps, txn) -> {
+            ps.setBigDecimal(1, txn.getAmount());
+            ps.setString(2, txn.getTransactionType().name());
+            ps.setTimestamp(3, Timestamp.valueOf(txn.getTransactionDate()));
+            ps.setString(4, txn.getDescription());
+            ps.setString(5, txn.getTransactionStatus() == null ? null : txn.getTransactionStatus().name());
+            ps.setLong(6, txn.getAccount().getId());
+            if (txn.getSourceAccount() == null) {
+                ps.setNull(7, Types.VARCHAR);
+            } else {
+                ps.setString(7, txn.getSourceAccount());
+            }
+            if (txn.getDestinationAccount() == null) {
+                ps.setNull(8, Types.VARCHAR);
+            } else {
+                ps.setString(8, txn.getDestinationAccount());
+            }
+        });
+    }
+}
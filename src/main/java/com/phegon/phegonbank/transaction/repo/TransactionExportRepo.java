@@ -0,0 +1,10 @@
+package com.phegon.phegonbank.transaction.repo;
+
+import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
+
+import java.util.function.Consumer;
+
+public interface TransactionExportRepo {
+    // hands rows to the consumer one at a time while the cursor is open, oldest first
+    void streamByAccountId(Long accountId, Consumer<TransactionDTO> consumer);
+}
@@ -0,0 +1,54 @@
+package com.phegon.phegonbank.transaction.repo;
+
+import com.phegon.phegonbank.enums.TransactionStatus;
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/**
+ * Forward-only, read-only JDBC cursor with a fixed fetch size, so only one fetch block of rows
+ * is in memory at a time and no entities end up in a persistence context.
+ * MySQL only honours the fetch size with useCursorFetch=true on the connection URL.
+ */
+@RequiredArgsConstructor
+public class TransactionExportRepoImpl implements TransactionExportRepo {
+
+    // ordered like idx_txn_account_date_id so the scan needs no sort
+    private static final String EXPORT_SQL = "select id, amount, transaction_type, transaction_date, description, " +
+            "transaction_status, source_account, destination_account from transactions " +
+            "where account_id = ? order by transaction_date, id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${bank.audit.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Override
+    public void streamByAccountId(Long accountId, Consumer<TransactionDTO> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, accountId);
+            return ps;
+        }, rs -> {
+            String status = rs.getString("transaction_status");
+            consumer.accept(TransactionDTO.builder()
+                    .id(rs.getLong("id"))
+                    .amount(rs.getBigDecimal("amount"))
+                    .transactionType(TransactionType.valueOf(rs.getString("transaction_type")))
+                    .transactionDate(rs.getTimestamp("transaction_date").toLocalDateTime())
+                    .description(rs.getString("description"))
+                    .transactionStatus(status == null ? null : TransactionStatus.valueOf(status))
+                    .sourceAccount(rs.getString("source_account"))
+                    .destinationAccount(rs.getString("destination_account"))
+                    .build());
+        });
+    }
+}
@@ -4,14 +4,31 @@ import com.phegon.phegonbank.account.entity.Account;
 import com.phegon.phegonbank.transaction.entity.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface TransactionRepo extends JpaRepository<Transaction, Long> {
+public interface TransactionRepo extends JpaRepository<Transaction, Long>, TransactionBatchRepo, TransactionExportRepo {
     Page<Transaction> findByAccount_AccountNumber(String accountNumber, Pageable pageable);
     List<Transaction> findByAccount_AccountNumber(String accountNumber);
     List<Transaction> findByAccount(Account account);
 
+    // keyset paging, newest first; both walk idx_txn_account_date_id without OFFSET or COUNT
+    @Query("select t from Transaction t where t.account.id = :accountId " +
+            "order by t.transactionDate desc, t.id desc")
+    List<Transaction> findLatestByAccountId(@Param("accountId") Long accountId, Limit limit);
+
+    @Query("select t from Transaction t where t.account.id = :accountId " +
+            "and (t.transactionDate < :transactionDate or (t.transactionDate = :transactionDate and t.id < :id)) " +
+            "order by t.transactionDate desc, t.id desc")
+    List<Transaction> findByAccountIdBefore(@Param("accountId") Long accountId,
+                                            @Param("transactionDate") LocalDateTime transactionDate,
+                                            @Param("id") Long id,
+                                            Limit limit);
+
 }
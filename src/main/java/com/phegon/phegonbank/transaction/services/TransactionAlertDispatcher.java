@@ -0,0 +1,191 @@
+package com.phegon.phegonbank.transaction.services;
+
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.monitoring.services.MetricsSource;
+import com.phegon.phegonbank.transaction.entity.TransactionAlert;
+import com.phegon.phegonbank.transaction.repo.TransactionAlertRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the transaction alert outbox on its own thread: woken after every commit that wrote
+ * alerts, and polling every bank.notifications.outbox.poll-interval-ms for rows left by a restart
+ * or another instance. Each batch loads the accounts and their owners in one query, hands the
+ * emails to NotificationService and deletes the rows in the same transaction.
+ * A row whose email cannot be handed off is retried on later batches and dropped after
+ * bank.notifications.outbox.max-attempts.
+ */
+@Component
+@Slf4j
+public class TransactionAlertDispatcher implements MetricsSource {
+
+    private final TransactionAlertRepo transactionAlertRepo;
+    private final AccountRepo accountRepo;
+    private final TransactionNotificationSender transactionNotificationSender;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final int maxAttempts;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private Thread worker;
+    private volatile boolean running;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private volatile long lastLagMillis;
+
+    public TransactionAlertDispatcher(TransactionAlertRepo transactionAlertRepo,
+                                      AccountRepo accountRepo,
+                                      TransactionNotificationSender transactionNotificationSender,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${bank.notifications.outbox.batch-size:200}") int batchSize,
+                                      @Value("${bank.notifications.outbox.poll-interval-ms:1000}") long pollIntervalMillis,
+                                      @Value("${bank.notifications.outbox.max-attempts:5}") int maxAttempts) {
+        this.transactionAlertRepo = transactionAlertRepo;
+        this.accountRepo = accountRepo;
+        this.transactionNotificationSender = transactionNotificationSender;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollIntervalMillis = Math.max(1, pollIntervalMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("txn-alert-dispatcher").daemon().start(this::run);
+    }
+
+    // undelivered rows stay in the table and go out after the next start
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        wakeUp();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // one pending permit is enough, the drain that follows picks up everything committed so far
+    void wakeUp() {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                wakeUps.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+                drain();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Dispatching transaction alerts failed, retrying in {} ms: {}", pollIntervalMillis, e.getMessage());
+            }
+        }
+    }
+
+    // keeps going while full batches complete; a failed send ends the round until the next wake-up or poll
+    private void drain() {
+        int handled;
+        do {
+            Integer count = transactionTemplate.execute(status -> dispatchBatch());
+            handled = count == null ? 0 : count;
+        } while (handled == batchSize && running);
+    }
+
+    private int dispatchBatch() {
+        List<TransactionAlert> alerts = transactionAlertRepo.findOldestForDispatch(Limit.of(batchSize));
+        if (alerts.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> accountNumbers = new TreeSet<>();
+        for (TransactionAlert alert : alerts) {
+            accountNumbers.add(alert.getAccountNumber());
+        }
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : accountRepo.findAllWithUserByAccountNumberIn(accountNumbers)) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+
+        List<Long> done = new ArrayList<>(alerts.size());
+        for (TransactionAlert alert : alerts) {
+            Account account = accounts.get(alert.getAccountNumber());
+            if (account == null) {
+                log.warn("Dropping alert {}: account {} no longer exists", alert.getId(), alert.getAccountNumber());
+                dropped.increment();
+                done.add(alert.getId());
+                continue;
+            }
+            try {
+                transactionNotificationSender.send(alert, account);
+                dispatched.increment();
+                done.add(alert.getId());
+            } catch (RuntimeException e) {
+                failures.increment();
+                int attempts = alert.getAttempts() + 1;
+                if (attempts >= maxAttempts) {
+                    log.error("Dropping alert {} for account {} after {} attempts: {}",
+                            alert.getId(), alert.getAccountNumber(), attempts, e.getMessage());
+                    dropped.increment();
+                    done.add(alert.getId());
+                } else {
+                    alert.setAttempts(attempts); // flushed on commit
+                }
+            }
+        }
+        transactionAlertRepo.deleteAllByIdInBatch(done);
+
+        long lag = Duration.between(alerts.get(0).getCreatedAt(), LocalDateTime.now()).toMillis();
+        lastLagMillis = lag;
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+        batches.increment();
+        return done.size();
+    }
+
+    @Override
+    public String getName() {
+        return "transaction-alert-outbox";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", transactionAlertRepo.count());
+        stats.put("dispatched", dispatched.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failures", failures.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("lastBatchLagMillis", lastLagMillis);
+        stats.put("maxBatchLagMillis", maxLagMillis.get());
+        return stats;
+    }
+}
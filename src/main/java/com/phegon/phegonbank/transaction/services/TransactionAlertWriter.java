@@ -0,0 +1,82 @@
+package com.phegon.phegonbank.transaction.services;
+
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.sharding.ShardedBalanceManager;
+import com.phegon.phegonbank.enums.EntryDirection;
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.transaction.entity.Transaction;
+import com.phegon.phegonbank.transaction.entity.TransactionAlert;
+import com.phegon.phegonbank.transaction.repo.TransactionAlertRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the alert emails for saved transactions in the outbox, inside the caller's transaction,
+ * so they commit or roll back with the balances. Nothing is rendered or sent here; the dispatcher
+ * is woken once the transaction has committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionAlertWriter {
+    private final TransactionAlertRepo transactionAlertRepo;
+    private final TransactionAlertDispatcher transactionAlertDispatcher;
+    private final ShardedBalanceManager shardedBalanceManager;
+
+    // destAccount may be passed in when the caller already holds it, it provides the receiver's new balance
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void write(Transaction txn, Account destAccount) {
+        writeAll(List.of(txn), destAccount == null ? Map.of() : Map.of(destAccount.getAccountNumber(), destAccount));
+    }
+
+    // destAccounts by account number, transfer receivers missing from it get their balance filled in at send time
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void writeAll(List<Transaction> transactions, Map<String, Account> destAccounts) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<TransactionAlert> alerts = new ArrayList<>(transactions.size() * 2);
+        for (Transaction txn : transactions) {
+            Account account = txn.getAccount();
+            String accountNumber = txn.getSourceAccount() != null ? txn.getSourceAccount() : account.getAccountNumber();
+            EntryDirection direction = txn.getTransactionType() == TransactionType.DEPOSIT ? EntryDirection.CREDIT : EntryDirection.DEBIT;
+            alerts.add(alert(txn, direction, accountNumber, shardedBalanceManager.balanceOf(account), now));
+
+            if (txn.getTransactionType() == TransactionType.TRANSFER) {
+                Account destAccount = destAccounts.get(txn.getDestinationAccount());
+                alerts.add(alert(txn, EntryDirection.CREDIT, txn.getDestinationAccount(),
+                        destAccount == null ? null : shardedBalanceManager.balanceOf(destAccount), now));
+            }
+        }
+        transactionAlertRepo.insertAll(alerts);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                transactionAlertDispatcher.wakeUp();
+            }
+        });
+    }
+
+    private static TransactionAlert alert(Transaction txn, EntryDirection direction, String accountNumber,
+                                          BigDecimal balance, LocalDateTime now) {
+        return TransactionAlert.builder()
+                .direction(direction)
+                .accountNumber(accountNumber)
+                .amount(txn.getAmount())
+                .balance(balance)
+                .transactionDate(txn.getTransactionDate())
+                .createdAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.phegon.phegonbank.transaction.services;
+
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.sharding.ShardedBalanceManager;
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.enums.EntryDirection;
+import com.phegon.phegonbank.notification.dtos.NotificationDTO;
+import com.phegon.phegonbank.notification.services.NotificationService;
+import com.phegon.phegonbank.transaction.entity.TransactionAlert;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// builds the credit/debit alert email for one outbox row; called by TransactionAlertDispatcher after commit
+@Component
+@RequiredArgsConstructor
+public class TransactionNotificationSender {
+    private final NotificationService notificationService;
+    private final ShardedBalanceManager shardedBalanceManager;
+
+    // account must have its user loaded
+    public void send(TransactionAlert alert, Account account) {
+        User user = account.getUser();
+        boolean credit = alert.getDirection() == EntryDirection.CREDIT;
+
+        Map<String, Object> templateVariables = new HashMap<>();
+
+        templateVariables.put("name", user.getFirstName());
+        templateVariables.put("amount", alert.getAmount());
+        templateVariables.put("accountNumber", account.getAccountNumber());
+        templateVariables.put("date", alert.getTransactionDate());
+        templateVariables.put("balance", alert.getBalance() != null ? alert.getBalance() : shardedBalanceManager.balanceOf(account));
+
+        NotificationDTO notificationEmailToSendOut = NotificationDTO.builder()
+                .recipient(user.getEmail())
+                .subject(credit ? "Credit Alert" : "Debit Alert")
+                .templateName(credit ? "credit-alert" : "debit-alert")
+                .templateVariables(templateVariables)
+                .build();
+
+        notificationService.sendEmail(notificationEmailToSendOut, user);
+    }
+}
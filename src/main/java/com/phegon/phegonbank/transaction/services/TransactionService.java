@@ -1,6 +1,7 @@
 package com.phegon.phegonbank.transaction.services;
 
 import com.phegon.phegonbank.res.Response;
+import com.phegon.phegonbank.transaction.dtos.BatchTransactionResult;
 import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
 import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
 
@@ -8,5 +9,7 @@ import java.util.List;
 
 public interface TransactionService {
     Response<?> createTransaction(TransactionRequest transactionRequest);
+    Response<List<BatchTransactionResult>> createTransactions(List<TransactionRequest> transactionRequests);
     Response<List<TransactionDTO>> getTransactionsForAnAccount(String accountNumber, int page, int size);
+    Response<List<TransactionDTO>> getTransactionHistory(String accountNumber, String cursor, int size);
 }
@@ -1,25 +1,33 @@
 package com.phegon.phegonbank.transaction.services;
 
 import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.locking.AccountLockManager;
+import com.phegon.phegonbank.account.repo.AccountBalanceView;
 import com.phegon.phegonbank.account.repo.AccountRepo;
-import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.account.sharding.ShardedBalanceManager;
 import com.phegon.phegonbank.auth_users.services.UserService;
+import com.phegon.phegonbank.enums.ConcurrencyMode;
 import com.phegon.phegonbank.enums.TransactionStatus;
 import com.phegon.phegonbank.enums.TransactionType;
 import com.phegon.phegonbank.exceptions.BadRequestException;
 import com.phegon.phegonbank.exceptions.InsufficientBalanceException;
 import com.phegon.phegonbank.exceptions.InvalidTransactionException;
 import com.phegon.phegonbank.exceptions.NotFoundException;
-import com.phegon.phegonbank.notification.dtos.NotificationDTO;
-import com.phegon.phegonbank.notification.services.NotificationService;
+import com.phegon.phegonbank.ledger.services.LedgerService;
 import com.phegon.phegonbank.res.Response;
+import com.phegon.phegonbank.transaction.concurrency.OptimisticRetryExecutor;
+import com.phegon.phegonbank.transaction.dtos.BatchTransactionResult;
 import com.phegon.phegonbank.transaction.dtos.TransactionDTO;
 import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
+import com.phegon.phegonbank.transaction.engine.InMemoryLedgerEngine;
+import com.phegon.phegonbank.transaction.mappers.TransactionMapper;
 import com.phegon.phegonbank.transaction.repo.TransactionRepo;
 import com.phegon.phegonbank.transaction.entity.Transaction;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,10 +35,18 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -38,30 +54,81 @@ import java.util.Map;
 public class TransactionServiceImpl implements TransactionService {
     private final TransactionRepo transactionRepo;
     private final AccountRepo accountRepo;
-    private final NotificationService notificationService;
+    private final TransactionAlertWriter transactionAlertWriter;
     private final UserService userService;
-    private final ModelMapper modelMapper;
+    private final TransactionMapper transactionMapper;
+    private final AccountLockManager accountLockManager;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+    private final ShardedBalanceManager shardedBalanceManager;
+    private final Optional<InMemoryLedgerEngine> ledgerEngine; // present when bank.transactions.engine=IN_MEMORY
+
+    @Value("${bank.transactions.concurrency-mode:PESSIMISTIC}")
+    private ConcurrencyMode concurrencyMode;
+
+    @Value("${bank.transactions.batch.max-items:5000}")
+    private int maxBatchItems;
+
+    @Value("${bank.transactions.history.max-page-size:200}")
+    private int maxHistoryPageSize;
 
     @Override
-    @Transactional
     public Response<?> createTransaction(TransactionRequest transactionRequest) {
+        if (ledgerEngine.isPresent()) {
+            // returns once the request is in the write-ahead log, MySQL is updated behind it
+            ledgerEngine.get().execute(transactionRequest);
+            return Response.builder()
+                    .statusCode(200)
+                    .message("Transaction successful")
+                    .build();
+        }
+        if (concurrencyMode == ConcurrencyMode.OPTIMISTIC) {
+            // each attempt is its own DB transaction, a lost version check rolls back and retries
+            return optimisticRetryExecutor.execute(
+                    () -> transactionTemplate.execute(status -> processTransaction(transactionRequest)));
+        }
+
+        return transactionTemplate.execute(status -> {
+            // in-JVM stripe locks first (released after commit), then the row locks below
+            accountLockManager.lock(accountsToLock(transactionRequest));
+            return processTransaction(transactionRequest);
+        });
+    }
+
+    // credits to sharded accounts go to a balance slot and don't need the account lock
+    private List<String> accountsToLock(TransactionRequest request) {
+        List<String> accountNumbers = new ArrayList<>(2);
+        if (request.getTransactionType() != TransactionType.DEPOSIT
+                || !shardedBalanceManager.isSharded(request.getAccountNumber())) {
+            accountNumbers.add(request.getAccountNumber());
+        }
+        if (!shardedBalanceManager.isSharded(request.getDestinationAccountNumber())) {
+            accountNumbers.add(request.getDestinationAccountNumber());
+        }
+        return accountNumbers;
+    }
+
+    private Response<?> processTransaction(TransactionRequest transactionRequest) {
         Transaction transaction = new Transaction();
 
         transaction.setTransactionType(transactionRequest.getTransactionType());
         transaction.setAmount(transactionRequest.getAmount());
         transaction.setDescription(transactionRequest.getDescription());
 
+        Account destAccount = null;
         switch (transactionRequest.getTransactionType()) {
             case DEPOSIT ->  handleDeposit(transactionRequest, transaction);
             case WITHDRAW -> handleWithDraw(transactionRequest, transaction);
-            case TRANSFER -> handleTransfer(transactionRequest, transaction);
+            case TRANSFER -> destAccount = handleTransfer(transactionRequest, transaction);
             default -> throw new InvalidTransactionException("Invalid transaction type");
         }
+        ledgerService.post(List.of(transactionRequest)); // journal legs commit or roll back with the balance
 
         transaction.setTransactionStatus(TransactionStatus.SUCCESS);
         Transaction savedTxn = transactionRepo.save(transaction);
 
-        sendTransactionNotifications(savedTxn);
+        transactionAlertWriter.write(savedTxn, destAccount); // emails go out after commit
 
         return Response.builder()
                 .statusCode(200)
@@ -69,22 +136,201 @@ public class TransactionServiceImpl implements TransactionService {
                 .build();
     }
 
+    @Override
+    public Response<List<BatchTransactionResult>> createTransactions(List<TransactionRequest> transactionRequests) {
+        if (transactionRequests == null || transactionRequests.isEmpty()) {
+            throw new BadRequestException("Batch must contain at least one transaction");
+        }
+        if (transactionRequests.size() > maxBatchItems) {
+            throw new BadRequestException("Batch cannot contain more than " + maxBatchItems + " transactions");
+        }
+
+        List<BatchTransactionResult> results = ledgerEngine.isPresent()
+                ? processBatchInEngine(ledgerEngine.get(), transactionRequests)
+                : transactionTemplate.execute(status -> processBatch(transactionRequests));
+
+        long succeeded = results.stream()
+                .filter(result -> result.getTransactionStatus() == TransactionStatus.SUCCESS)
+                .count();
+
+        return Response.<List<BatchTransactionResult>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Batch processed")
+                .data(results)
+                .meta(Map.of(
+                        "succeeded", succeeded,
+                        "failed", results.size() - succeeded
+                ))
+                .build();
+    }
+
+    /**
+     * Locks every account the batch touches up front (stripes, then one IN query with
+     * FOR UPDATE, both in account number order), applies the items in submission order
+     * against the loaded entities and writes all transaction rows in one JDBC batch
+     * and all journal legs in multi-row inserts.
+     * A rejected item does not fail the batch, it is reported in its result instead.
+     */
+    private List<BatchTransactionResult> processBatch(List<TransactionRequest> requests) {
+        TreeSet<String> accountNumbers = new TreeSet<>();
+        for (TransactionRequest request : requests) {
+            for (String accountNumber : accountsToLock(request)) {
+                if (accountNumber != null) {
+                    accountNumbers.add(accountNumber);
+                }
+            }
+        }
+
+        accountLockManager.lock(accountNumbers);
+        Map<String, Account> accounts = new HashMap<>();
+        if (!accountNumbers.isEmpty()) {
+            for (Account account : accountRepo.findAllByAccountNumberInForUpdate(accountNumbers)) {
+                accounts.put(account.getAccountNumber(), account);
+            }
+        }
+
+        List<BatchTransactionResult> results = new ArrayList<>(requests.size());
+        List<Transaction> applied = new ArrayList<>(requests.size());
+        List<TransactionRequest> appliedRequests = new ArrayList<>(requests.size());
+        Map<String, BigDecimal> slotCredits = new TreeMap<>(); // sharded accounts, not locked above
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                applied.add(applyBatchItem(requests.get(i), accounts, slotCredits));
+                appliedRequests.add(requests.get(i));
+                results.add(BatchTransactionResult.builder()
+                        .index(i)
+                        .transactionStatus(TransactionStatus.SUCCESS)
+                        .build());
+            } catch (NotFoundException | InsufficientBalanceException | InvalidTransactionException | BadRequestException e) {
+                results.add(BatchTransactionResult.builder()
+                        .index(i)
+                        .transactionStatus(TransactionStatus.FAILED)
+                        .message(e.getMessage())
+                        .build());
+            }
+        }
+
+        // one slot increment per sharded account for the whole batch, in account order
+        slotCredits.forEach(shardedBalanceManager::credit);
+        transactionRepo.insertAll(applied); // balances are flushed as batched updates on commit
+        ledgerService.post(appliedRequests);
+
+        transactionAlertWriter.writeAll(applied, accounts);
+        return results;
+    }
+
+    // all items are submitted before waiting, so the whole batch tends to share a few fsyncs
+    private List<BatchTransactionResult> processBatchInEngine(InMemoryLedgerEngine engine, List<TransactionRequest> requests) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(requests.size());
+        List<RuntimeException> rejections = new ArrayList<>(requests.size());
+        for (TransactionRequest request : requests) {
+            try {
+                futures.add(engine.submit(request));
+                rejections.add(null);
+            } catch (RuntimeException e) {
+                futures.add(null);
+                rejections.add(e);
+            }
+        }
+
+        List<BatchTransactionResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            RuntimeException failure = rejections.get(i);
+            if (failure == null) {
+                try {
+                    engine.await(futures.get(i));
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            results.add(BatchTransactionResult.builder()
+                    .index(i)
+                    .transactionStatus(failure == null ? TransactionStatus.SUCCESS : TransactionStatus.FAILED)
+                    .message(failure == null ? null : failure.getMessage())
+                    .build());
+        }
+        return results;
+    }
+
+    private Transaction applyBatchItem(TransactionRequest request, Map<String, Account> accounts,
+                                       Map<String, BigDecimal> slotCredits) {
+        if (request.getTransactionType() == null) {
+            throw new InvalidTransactionException("Invalid transaction type");
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BadRequestException("Amount must be greater than zero");
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setTransactionType(request.getTransactionType());
+        transaction.setAmount(request.getAmount());
+        transaction.setDescription(request.getDescription());
+
+        Account account = accounts.get(request.getAccountNumber());
+        if (account == null && request.getTransactionType() == TransactionType.DEPOSIT
+                && shardedBalanceManager.isSharded(request.getAccountNumber())) {
+            slotCredits.merge(request.getAccountNumber(), request.getAmount(), BigDecimal::add);
+            transaction.setAccount(accountRepo.getReferenceById(shardedBalanceManager.accountId(request.getAccountNumber())));
+            transaction.setTransactionStatus(TransactionStatus.SUCCESS);
+            return transaction;
+        }
+        if (account == null) {
+            throw new NotFoundException("Account not found");
+        }
+        transaction.setAccount(account);
+
+        switch (request.getTransactionType()) {
+            case DEPOSIT -> account.setBalance(account.getBalance().add(request.getAmount()));
+            case WITHDRAW -> {
+                shardedBalanceManager.foldIfShort(account, request.getAmount());
+                if (account.getBalance().compareTo(request.getAmount()) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                account.setBalance(account.getBalance().subtract(request.getAmount()));
+            }
+            case TRANSFER -> {
+                String destAccountNumber = request.getDestinationAccountNumber();
+                Account destAccount = accounts.get(destAccountNumber);
+                boolean creditSlot = destAccount == null && shardedBalanceManager.isSharded(destAccountNumber);
+                if (destAccount == null && !creditSlot) {
+                    throw new NotFoundException("Account not found");
+                }
+                shardedBalanceManager.foldIfShort(account, request.getAmount());
+                if (account.getBalance().compareTo(request.getAmount()) < 0) {
+                    throw new InsufficientBalanceException("Insufficient balance");
+                }
+                account.setBalance(account.getBalance().subtract(request.getAmount()));
+                if (creditSlot) {
+                    slotCredits.merge(destAccountNumber, request.getAmount(), BigDecimal::add);
+                } else {
+                    destAccount.setBalance(destAccount.getBalance().add(request.getAmount()));
+                }
+                transaction.setSourceAccount(account.getAccountNumber());
+                transaction.setDestinationAccount(destAccountNumber);
+            }
+            default -> throw new InvalidTransactionException("Invalid transaction type");
+        }
+
+        transaction.setTransactionStatus(TransactionStatus.SUCCESS);
+        return transaction;
+    }
+
     @Override
     @Transactional
     public Response<List<TransactionDTO>> getTransactionsForAnAccount(String accountNumber, int page, int size) {
-        User user = userService.getCurrentLoggedUser();
+        Long userId = userService.getCurrentUserId();
 
         Account account = accountRepo.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new NotFoundException("Account not found"));
 
-        if (!account.getUser().getId().equals(user.getId())) {
+        if (!account.getUser().getId().equals(userId)) {
             throw new BadRequestException("Account does not belong to this user");
         }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("transactionDate").descending());
         Page<Transaction> txns = transactionRepo.findByAccount_AccountNumber(accountNumber, pageable);
         List<TransactionDTO> transactionDTOS = txns.getContent().stream()
-                .map(transaction -> modelMapper.map(transaction, TransactionDTO. class))
+                .map(transactionMapper::toDto)
                 .toList();
 
         return Response.<List<TransactionDTO>>builder()
@@ -102,9 +348,70 @@ public class TransactionServiceImpl implements TransactionService {
                 .build();
     }
 
+    /**
+     * Seek pagination by (transactionDate, id), newest first. Each page is one range scan on
+     * idx_txn_account_date_id starting right after the cursor, so page 1000 costs the same as
+     * page 1, and no COUNT query runs. One extra row is fetched to tell whether more pages exist.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Response<List<TransactionDTO>> getTransactionHistory(String accountNumber, String cursor, int size) {
+        if (size < 1 || size > maxHistoryPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxHistoryPageSize);
+        }
+        Long userId = userService.getCurrentUserId();
+
+        Account account = accountRepo.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new NotFoundException("Account not found"));
+
+        if (!account.getUser().getId().equals(userId)) {
+            throw new BadRequestException("Account does not belong to this user");
+        }
+
+        Limit limit = Limit.of(size + 1);
+        List<Transaction> txns;
+        if (cursor == null || cursor.isBlank()) {
+            txns = transactionRepo.findLatestByAccountId(account.getId(), limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            txns = transactionRepo.findByAccountIdBefore(account.getId(), position.transactionDate(), position.id(), limit);
+        }
+
+        boolean hasMore = txns.size() > size;
+        List<Transaction> pageContent = hasMore ? txns.subList(0, size) : txns;
+        List<TransactionDTO> transactionDTOS = pageContent.stream()
+                .map(transactionMapper::toDto)
+                .toList();
+
+        HashMap<String, Serializable> meta = new HashMap<>();
+        meta.put("pageSize", size);
+        meta.put("hasMore", hasMore);
+        if (hasMore) {
+            meta.put("nextCursor", TransactionCursor.after(pageContent.get(pageContent.size() - 1)).encode());
+        }
+
+        return Response.<List<TransactionDTO>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Transcations retrieved")
+                .data(transactionDTOS)
+                .meta(meta)
+                .build();
+    }
+
     private void handleDeposit(TransactionRequest request, Transaction transaction) {
-        Account account = accountRepo.findByAccountNumber(request.getAccountNumber())
-                .orElseThrow(()->new NotFoundException("Account not found"));
+        if (shardedBalanceManager.isSharded(request.getAccountNumber())) {
+            Long accountId = shardedBalanceManager.credit(request.getAccountNumber(), request.getAmount());
+            transaction.setAccount(accountRepo.getReferenceById(accountId));
+            return;
+        }
+        if (concurrencyMode == ConcurrencyMode.OPTIMISTIC) {
+            AccountBalanceView account = readBalance(request.getAccountNumber());
+            updateBalance(account, account.getBalance().add(request.getAmount()));
+            transaction.setAccount(accountRepo.getReferenceById(account.getId()));
+            return;
+        }
+
+        Account account = lockAccount(request.getAccountNumber());
 
         account.setBalance(account.getBalance().add(request.getAmount()));
         transaction.setAccount(account);
@@ -112,8 +419,19 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     private void handleWithDraw(TransactionRequest request, Transaction transaction) {
-        Account account = accountRepo.findByAccountNumber(request.getAccountNumber())
-                .orElseThrow(() -> new NotFoundException("Account not found"));
+        // sharded accounts always debit under the row lock, folding their slots in when needed
+        if (concurrencyMode == ConcurrencyMode.OPTIMISTIC && !shardedBalanceManager.isSharded(request.getAccountNumber())) {
+            AccountBalanceView account = readBalance(request.getAccountNumber());
+            if (account.getBalance().compareTo(request.getAmount()) < 0) {
+                throw new InsufficientBalanceException("Insufficient balance");
+            }
+            updateBalance(account, account.getBalance().subtract(request.getAmount()));
+            transaction.setAccount(accountRepo.getReferenceById(account.getId()));
+            return;
+        }
+
+        Account account = lockAccount(request.getAccountNumber());
+        shardedBalanceManager.foldIfShort(account, request.getAmount());
         if (account.getBalance().compareTo(request.getAmount()) < 0) {
             throw new InsufficientBalanceException("Insufficient balance");
         }
@@ -124,12 +442,46 @@ public class TransactionServiceImpl implements TransactionService {
 
     }
 
-    private void handleTransfer(TransactionRequest request, Transaction transaction) {
-        Account sourceAccount = accountRepo.findByAccountNumber(request.getAccountNumber())
-                .orElseThrow(()->new NotFoundException("Account not found"));
-        Account destAccount = accountRepo.findByAccountNumber(request.getDestinationAccountNumber())
-                .orElseThrow(()->new NotFoundException("Account not found"));
+    // returns the locked destination account, or null when the credit did not go through an account row
+    private Account handleTransfer(TransactionRequest request, Transaction transaction) {
+        if (request.getDestinationAccountNumber() == null) {
+            throw new BadRequestException("Destination account number is required");
+        }
+        boolean shardedSource = shardedBalanceManager.isSharded(request.getAccountNumber());
+        boolean shardedDest = shardedBalanceManager.isSharded(request.getDestinationAccountNumber())
+                && !request.getDestinationAccountNumber().equals(request.getAccountNumber());
+        if (concurrencyMode == ConcurrencyMode.OPTIMISTIC && !shardedSource && !shardedDest) {
+            handleTransferOptimistic(request, transaction);
+            return null;
+        }
+        if (shardedDest) {
+            // only the source row is locked, the credit lands on a slot of the hot account
+            Account sourceAccount = lockAccount(request.getAccountNumber());
+            shardedBalanceManager.foldIfShort(sourceAccount, request.getAmount());
+            if (sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
+                throw new InsufficientBalanceException("Insufficient balance");
+            }
+            sourceAccount.setBalance(sourceAccount.getBalance().subtract(request.getAmount()));
+            accountRepo.save(sourceAccount);
+            shardedBalanceManager.credit(request.getDestinationAccountNumber(), request.getAmount());
+
+            transaction.setAccount(sourceAccount);
+            transaction.setSourceAccount(sourceAccount.getAccountNumber());
+            transaction.setDestinationAccount(request.getDestinationAccountNumber());
+            return null;
+        }
+        // take the row locks in account number order so two opposite transfers can't deadlock
+        Account sourceAccount;
+        Account destAccount;
+        if (request.getAccountNumber().compareTo(request.getDestinationAccountNumber()) <= 0) {
+            sourceAccount = lockAccount(request.getAccountNumber());
+            destAccount = lockAccount(request.getDestinationAccountNumber());
+        } else {
+            destAccount = lockAccount(request.getDestinationAccountNumber());
+            sourceAccount = lockAccount(request.getAccountNumber());
+        }
 
+        shardedBalanceManager.foldIfShort(sourceAccount, request.getAmount());
         if(sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
             throw new InsufficientBalanceException("Insufficient balance");
         }
@@ -144,81 +496,46 @@ public class TransactionServiceImpl implements TransactionService {
         transaction.setAccount(sourceAccount);
         transaction.setSourceAccount(sourceAccount.getAccountNumber());
         transaction.setDestinationAccount(destAccount.getAccountNumber());
+        return destAccount;
     }
 
-    private void sendTransactionNotifications(Transaction txn) {
-        User user = txn.getAccount().getUser();
-        String subject;
-        String template;
-
-        Map<String, Object> templateVariables = new HashMap<>();
-
-        templateVariables.put("name", user.getFirstName());
-        templateVariables.put("amount", txn.getAmount());
-        templateVariables.put("accountNumber", txn.getAccount().getAccountNumber());
-        templateVariables.put("date", txn.getTransactionDate());
-        templateVariables.put("balance", txn.getAccount().getBalance());
-
-        if (txn.getTransactionType() == TransactionType.DEPOSIT) {
-            subject = "Credit Alert";
-            template = "credit-alert";
-
-
-            NotificationDTO notificationEmailToSendOut = NotificationDTO.builder()
-                    .recipient(user.getEmail())
-                    .subject(subject)
-                    .templateName(template)
-                    .templateVariables(templateVariables)
-                    .build();
-
-            notificationService.sendEmail(notificationEmailToSendOut, user);
-        } else if (txn.getTransactionType() == TransactionType.WITHDRAW){
-            subject = "Debit Alert";
-            template = "debit-alert";
-
-            NotificationDTO notificationEmailToSendOut = NotificationDTO.builder()
-                    .recipient(user.getEmail())
-                    .subject(subject)
-                    .templateName(template)
-                    .templateVariables(templateVariables)
-                    .build();
-            notificationService.sendEmail(notificationEmailToSendOut, user);
-        } else if (txn.getTransactionType() == TransactionType.TRANSFER){
-            subject = "Debit Alert";
-            template = "debit-alert";
-
-            NotificationDTO notificationEmailToSendOut = NotificationDTO.builder()
-                    .recipient(user.getEmail())
-                    .subject(subject)
-                    .templateName(template)
-                    .templateVariables(templateVariables)
-                    .build();
-            notificationService.sendEmail(notificationEmailToSendOut, user);
-
-            //Receiver credit alert
+    private void handleTransferOptimistic(TransactionRequest request, Transaction transaction) {
+        AccountBalanceView sourceAccount = readBalance(request.getAccountNumber());
+        AccountBalanceView destAccount = readBalance(request.getDestinationAccountNumber());
 
-            Account destAccount = accountRepo.findByAccountNumber(txn.getDestinationAccount())
-                    .orElseThrow(()->new NotFoundException("Destination account not found"));
-
-            User receiver = destAccount.getUser();
+        if (sourceAccount.getBalance().compareTo(request.getAmount()) < 0) {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }
 
-            Map<String, Object> recvVars = new HashMap<>();
+        // the UPDATEs still take row locks until commit, keep them in account number order
+        if (sourceAccount.getId().equals(destAccount.getId())) {
+            // transfer to self leaves the balance unchanged, nothing to update
+        } else if (sourceAccount.getAccountNumber().compareTo(destAccount.getAccountNumber()) <= 0) {
+            updateBalance(sourceAccount, sourceAccount.getBalance().subtract(request.getAmount()));
+            updateBalance(destAccount, destAccount.getBalance().add(request.getAmount()));
+        } else {
+            updateBalance(destAccount, destAccount.getBalance().add(request.getAmount()));
+            updateBalance(sourceAccount, sourceAccount.getBalance().subtract(request.getAmount()));
+        }
 
-            recvVars.put("name", receiver.getFirstName());
-            recvVars.put("amount", txn.getAmount());
-            recvVars.put("accountNumber", destAccount.getAccountNumber());
-            recvVars.put("date", txn.getTransactionDate());
-            recvVars.put("balance", destAccount.getBalance());
+        transaction.setAccount(accountRepo.getReferenceById(sourceAccount.getId()));
+        transaction.setSourceAccount(sourceAccount.getAccountNumber());
+        transaction.setDestinationAccount(destAccount.getAccountNumber());
+    }
 
-            NotificationDTO notificationEmailToSendOutToReceiver = NotificationDTO.builder()
-                    .recipient(receiver.getEmail())
-                    .subject("Credit Alert")
-                    .templateName("credit-alert")
-                    .templateVariables(recvVars)
-                    .build();
-            notificationService.sendEmail(notificationEmailToSendOutToReceiver, receiver);
+    private Account lockAccount(String accountNumber) {
+        return accountRepo.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(()->new NotFoundException("Account not found"));
+    }
 
+    private AccountBalanceView readBalance(String accountNumber) {
+        return accountRepo.findBalanceByAccountNumber(accountNumber)
+                .orElseThrow(()->new NotFoundException("Account not found"));
+    }
 
+    private void updateBalance(AccountBalanceView account, BigDecimal newBalance) {
+        if (accountRepo.updateBalanceIfVersionMatches(account.getId(), newBalance, account.getVersion()) == 0) {
+            throw new OptimisticLockingFailureException("Account " + account.getAccountNumber() + " changed concurrently");
         }
     }
 
@@ -0,0 +1,73 @@
+-- Baseline: the schema as Hibernate's ddl-auto=update produced it before migrations existed.
+-- Those databases are baselined at this version (see spring.flyway.baseline-on-migrate) and
+-- only pick up the scripts after it, so nothing added since belongs in this file.
+
+CREATE TABLE roles (
+    id   BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_name UNIQUE (name)
+);
+
+CREATE TABLE users (
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    first_name          VARCHAR(255),
+    last_name           VARCHAR(255),
+    phone_number        VARCHAR(255),
+    email               VARCHAR(255) NOT NULL,
+    password            VARCHAR(255),
+    profile_picture_url VARCHAR(255),
+    active              BOOLEAN      NOT NULL,
+    created_at          DATETIME(6),
+    updated_at          DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE users_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    CONSTRAINT fk_users_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_users_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE accounts (
+    id             BIGINT         NOT NULL AUTO_INCREMENT,
+    account_number VARCHAR(15)    NOT NULL,
+    balance        DECIMAL(19, 2) NOT NULL,
+    account_type   VARCHAR(255)   NOT NULL,
+    user_id        BIGINT         NOT NULL,
+    currency       VARCHAR(255),
+    account_status VARCHAR(255),
+    created_at     DATETIME(6),
+    updated_at     DATETIME(6),
+    closed_at      DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_accounts_account_number UNIQUE (account_number),
+    CONSTRAINT fk_accounts_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE transactions (
+    id                  BIGINT         NOT NULL AUTO_INCREMENT,
+    amount              DECIMAL(38, 2) NOT NULL,
+    transaction_type    VARCHAR(10)    NOT NULL,
+    transaction_date    DATETIME(6)    NOT NULL,
+    description         VARCHAR(255),
+    transaction_status  VARCHAR(255),
+    account_id          BIGINT         NOT NULL,
+    source_account      VARCHAR(255),
+    destination_account VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_transactions_account FOREIGN KEY (account_id) REFERENCES accounts (id)
+);
+
+CREATE TABLE password_reset_code (
+    id          BIGINT   NOT NULL AUTO_INCREMENT,
+    code        VARCHAR(255),
+    user_id     BIGINT   NOT NULL,
+    expiry_date DATETIME(6),
+    used        BOOLEAN  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_password_reset_code_code UNIQUE (code),
+    CONSTRAINT fk_password_reset_code_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
@@ -0,0 +1,16 @@
+-- Named indexes for the foreign keys our lookups filter on. MySQL quietly adds an index
+-- for a foreign key that has none and drops it again once one of these covers the column,
+-- so on existing databases this swaps an implicit index for an explicit, named one.
+
+-- keyset paging of an account's history and the statement export, newest first
+-- (TransactionRepo, TransactionExportRepoImpl); also covers the transactions.account_id foreign key
+CREATE INDEX idx_txn_account_date_id ON transactions (account_id, transaction_date, id);
+
+-- AccountRepo.findByUserId (a customer's account list)
+CREATE INDEX idx_accounts_user ON accounts (user_id);
+
+-- PassWordResetCodeRepo.deleteByUserId (runs before every new reset code)
+CREATE INDEX idx_password_reset_code_user ON password_reset_code (user_id);
+
+-- role lookups while loading a user's authorities
+CREATE INDEX idx_users_roles_user ON users_roles (user_id);
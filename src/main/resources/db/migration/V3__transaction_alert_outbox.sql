@@ -0,0 +1,16 @@
+-- Credit/debit alert emails waiting to be sent. Rows are inserted in the same database transaction
+-- as the balance change they describe and deleted by TransactionAlertDispatcher once the email has
+-- been handed to NotificationService, so only committed transactions ever produce mail.
+-- balance is NULL when the writer did not have the account loaded; the dispatcher then shows the
+-- balance at send time.
+CREATE TABLE transaction_alert_outbox (
+    id               BIGINT         NOT NULL AUTO_INCREMENT,
+    direction        VARCHAR(10)    NOT NULL,
+    account_number   VARCHAR(15)    NOT NULL,
+    amount           DECIMAL(38, 2) NOT NULL,
+    balance          DECIMAL(19, 2),
+    transaction_date DATETIME(6)    NOT NULL,
+    attempts         INT            NOT NULL DEFAULT 0,
+    created_at       DATETIME(6)    NOT NULL,
+    PRIMARY KEY (id)
+);
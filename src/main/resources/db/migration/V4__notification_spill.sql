@@ -0,0 +1,14 @@
+-- Emails the notification executor could not queue (overflow policy SPILL_TO_DB). They are moved
+-- back into the in-memory queue, oldest first, as soon as it has room again.
+-- template_variables holds the variables as a JSON object of strings.
+CREATE TABLE notification_spill (
+    id                 BIGINT       NOT NULL AUTO_INCREMENT,
+    recipient          VARCHAR(255) NOT NULL,
+    subject            VARCHAR(255),
+    body               TEXT,
+    template_name      VARCHAR(100),
+    template_variables TEXT,
+    user_id            BIGINT,
+    created_at         DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
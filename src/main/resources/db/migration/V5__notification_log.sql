@@ -0,0 +1,22 @@
+-- One row per email handed to the mail server (or failed on the way). Written in batches by
+-- NotificationLogWriter and purged by created_at once older than bank.notifications.log.retention-days.
+-- Templated emails keep the template name instead of the rendered body.
+CREATE TABLE notification_log (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id       BIGINT,
+    recipient     VARCHAR(255) NOT NULL,
+    subject       VARCHAR(255),
+    body          TEXT,
+    template_name VARCHAR(100),
+    type          VARCHAR(10)  NOT NULL,
+    status        VARCHAR(10)  NOT NULL,
+    error         VARCHAR(500),
+    created_at    DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- support lookups: a customer's emails, newest first
+CREATE INDEX idx_notification_log_user_created ON notification_log (user_id, created_at);
+CREATE INDEX idx_notification_log_recipient_created ON notification_log (recipient, created_at);
+-- retention purge walks this one
+CREATE INDEX idx_notification_log_created ON notification_log (created_at);
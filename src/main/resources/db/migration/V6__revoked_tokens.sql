@@ -0,0 +1,13 @@
+-- Token ids (jti) revoked before their expiry, e.g. on logout. TokenRevocations loads the live ones
+-- into its Bloom filter at startup, picks up other instances' revocations by revoked_at and deletes
+-- rows once expires_at has passed, when the token would be rejected anyway.
+CREATE TABLE revoked_tokens (
+    jti        VARCHAR(64) NOT NULL,
+    user_id    BIGINT,
+    expires_at DATETIME(6) NOT NULL,
+    revoked_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (jti)
+);
+
+CREATE INDEX idx_revoked_tokens_expires ON revoked_tokens (expires_at);
+CREATE INDEX idx_revoked_tokens_revoked ON revoked_tokens (revoked_at);
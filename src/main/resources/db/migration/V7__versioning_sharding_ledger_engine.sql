@@ -0,0 +1,37 @@
+-- Concurrency, ledger and engine objects that the V1 baseline databases do not have yet.
+
+-- optimistic mode: bumped on every balance update, existing rows start at 0
+ALTER TABLE accounts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- credits for a sharded (hot) account land on one of these rows instead of accounts.balance
+CREATE TABLE account_balance_slots (
+    id         BIGINT         NOT NULL AUTO_INCREMENT,
+    account_id BIGINT         NOT NULL,
+    slot       INT            NOT NULL,
+    balance    DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_account_balance_slots_account_slot UNIQUE (account_id, slot)
+);
+
+-- double-entry journal, one row per leg, never updated
+CREATE TABLE journal_entries (
+    id               BIGINT         NOT NULL AUTO_INCREMENT,
+    reference        VARCHAR(36)    NOT NULL,
+    account_number   VARCHAR(15)    NOT NULL,
+    direction        VARCHAR(6)     NOT NULL,
+    amount           DECIMAL(19, 2) NOT NULL,
+    transaction_type VARCHAR(10),
+    created_at       DATETIME(6)    NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_journal_account ON journal_entries (account_number, id);
+CREATE INDEX idx_journal_reference ON journal_entries (reference);
+
+-- last write-ahead log sequence the in-memory engine has persisted
+CREATE TABLE engine_checkpoint (
+    id            BIGINT NOT NULL,
+    last_sequence BIGINT NOT NULL,
+    updated_at    DATETIME(6),
+    PRIMARY KEY (id)
+);
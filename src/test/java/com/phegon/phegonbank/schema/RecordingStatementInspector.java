@@ -0,0 +1,29 @@
+package com.phegon.phegonbank.schema;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// collects every SQL statement Hibernate sends so the test can EXPLAIN exactly what the repositories run
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    static void clear() {
+        STATEMENTS.clear();
+    }
+
+    static List<String> drain() {
+        List<String> statements = new ArrayList<>(STATEMENTS);
+        STATEMENTS.clear();
+        return statements;
+    }
+}
@@ -0,0 +1,246 @@
+package com.phegon.phegonbank.schema;
+
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.auth_users.entity.PassWordResetCode;
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.auth_users.repo.PassWordResetCodeRepo;
+import com.phegon.phegonbank.auth_users.repo.RevokedTokenRepo;
+import com.phegon.phegonbank.auth_users.repo.UserRepo;
+import com.phegon.phegonbank.enums.AccountStatus;
+import com.phegon.phegonbank.enums.AccountType;
+import com.phegon.phegonbank.enums.Currency;
+import com.phegon.phegonbank.enums.TransactionStatus;
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.notification.repo.NotificationRepo;
+import com.phegon.phegonbank.role.entity.Role;
+import com.phegon.phegonbank.role.repo.RoleRepo;
+import com.phegon.phegonbank.transaction.entity.Transaction;
+import com.phegon.phegonbank.transaction.repo.TransactionRepo;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.flyway.autoconfigure.FlywayAutoConfiguration;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every query declared on TransactionRepo, AccountRepo, UserRepo, PassWordResetCodeRepo,
+ * NotificationRepo and RevokedTokenRepo against H2 (MySQL mode) with the schema built by the Flyway
+ * scripts, captures the SQL Hibernate actually sends and fails if the EXPLAIN plan of any statement
+ * reads a table without an index condition. Inherited JpaRepository methods such as count() are not covered.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:queryplans;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.phegon.phegonbank.schema.RecordingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(FlywayAutoConfiguration.class)
+class RepositoryQueryPlanTest {
+
+    // H2 annotates each table access in the plan: /* PUBLIC.IDX_NAME: COL = ?1 */ or /* PUBLIC.T.tableScan */
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\*\\s*(PUBLIC\\.[^*]*?)\\s*\\*/", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+    @Autowired
+    private AccountRepo accountRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private PassWordResetCodeRepo passWordResetCodeRepo;
+    @Autowired
+    private NotificationRepo notificationRepo;
+    @Autowired
+    private RevokedTokenRepo revokedTokenRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Account account;
+    private Account otherAccount;
+
+    @BeforeEach
+    void seed() {
+        Role role = roleRepo.save(Role.builder().name("CUSTOMER").build());
+        user = userRepo.save(User.builder()
+                .firstName("Plan")
+                .lastName("Check")
+                .email("plan.check@example.com")
+                .password("secret")
+                .active(true)
+                .roles(List.of(role))
+                .createdAt(LocalDateTime.now())
+                .build());
+        account = accountRepo.save(account("6600000001"));
+        otherAccount = accountRepo.save(account("6600000002"));
+
+        for (int i = 0; i < 20; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAmount(new BigDecimal("10.00"));
+            transaction.setTransactionType(TransactionType.DEPOSIT);
+            transaction.setTransactionDate(LocalDateTime.now().minusMinutes(i));
+            transaction.setTransactionStatus(TransactionStatus.SUCCESS);
+            transaction.setAccount(i % 2 == 0 ? account : otherAccount);
+            transactionRepo.save(transaction);
+        }
+
+        passWordResetCodeRepo.save(PassWordResetCode.builder()
+                .code("reset-code")
+                .user(user)
+                .expiryDate(LocalDateTime.now().plusHours(1))
+                .build());
+
+        entityManager.flush();
+        entityManager.clear();
+        RecordingStatementInspector.clear();
+    }
+
+    @Test
+    void transactionRepoQueriesUseIndexes() {
+        assertIndexed("TransactionRepo.findByAccount_AccountNumber(pageable)", () ->
+                transactionRepo.findByAccount_AccountNumber(account.getAccountNumber(),
+                        PageRequest.of(1, 5, Sort.by("transactionDate").descending())));
+        assertIndexed("TransactionRepo.findByAccount_AccountNumber", () ->
+                transactionRepo.findByAccount_AccountNumber(account.getAccountNumber()));
+        assertIndexed("TransactionRepo.findByAccount", () ->
+                transactionRepo.findByAccount(account));
+        assertIndexed("TransactionRepo.findLatestByAccountId", () ->
+                transactionRepo.findLatestByAccountId(account.getId(), Limit.of(5)));
+        assertIndexed("TransactionRepo.findByAccountIdBefore", () ->
+                transactionRepo.findByAccountIdBefore(account.getId(), LocalDateTime.now(), Long.MAX_VALUE, Limit.of(5)));
+    }
+
+    @Test
+    void accountRepoQueriesUseIndexes() {
+        assertIndexed("AccountRepo.findByAccountNumber", () ->
+                accountRepo.findByAccountNumber(account.getAccountNumber()));
+        assertIndexed("AccountRepo.findByUserId", () ->
+                accountRepo.findByUserId(user.getId()));
+        assertIndexed("AccountRepo.findByAccountNumberForUpdate", () ->
+                accountRepo.findByAccountNumberForUpdate(account.getAccountNumber()));
+        assertIndexed("AccountRepo.findAllByAccountNumberInForUpdate", () ->
+                accountRepo.findAllByAccountNumberInForUpdate(List.of(account.getAccountNumber(), otherAccount.getAccountNumber())));
+        assertIndexed("AccountRepo.findAllWithUserByAccountNumberIn", () ->
+                accountRepo.findAllWithUserByAccountNumberIn(List.of(account.getAccountNumber(), otherAccount.getAccountNumber())));
+        assertIndexed("AccountRepo.findBalanceByAccountNumber", () ->
+                accountRepo.findBalanceByAccountNumber(account.getAccountNumber()));
+        assertIndexed("AccountRepo.updateBalanceIfVersionMatches", () ->
+                accountRepo.updateBalanceIfVersionMatches(account.getId(), new BigDecimal("5.00"), account.getVersion()));
+    }
+
+    @Test
+    void userRepoQueriesUseIndexes() {
+        assertIndexed("UserRepo.findByEmail", () ->
+                userRepo.findByEmail(user.getEmail()));
+        assertIndexed("UserRepo.replacePasswordHash", () ->
+                userRepo.replacePasswordHash(user.getId(), "secret", "rehashed"));
+    }
+
+    @Test
+    void passWordResetCodeRepoQueriesUseIndexes() {
+        assertIndexed("PassWordResetCodeRepo.findByCode", () ->
+                passWordResetCodeRepo.findByCode("reset-code"));
+        assertIndexed("PassWordResetCodeRepo.deleteByUserId", () ->
+                passWordResetCodeRepo.deleteByUserId(user.getId()));
+    }
+
+    @Test
+    void notificationRepoQueriesUseIndexes() {
+        assertIndexed("NotificationRepo.findByUserIdOrderByCreatedAtDesc", () ->
+                notificationRepo.findByUserIdOrderByCreatedAtDesc(user.getId(), Limit.of(20)));
+        assertIndexed("NotificationRepo.findByRecipientOrderByCreatedAtDesc", () ->
+                notificationRepo.findByRecipientOrderByCreatedAtDesc(user.getEmail(), Limit.of(20)));
+    }
+
+    @Test
+    void revokedTokenRepoQueriesUseIndexes() {
+        assertIndexed("RevokedTokenRepo.findLiveJtis", () ->
+                revokedTokenRepo.findLiveJtis(LocalDateTime.now()));
+        assertIndexed("RevokedTokenRepo.findJtisRevokedAfter", () ->
+                revokedTokenRepo.findJtisRevokedAfter(LocalDateTime.now().minusMinutes(1)));
+        assertIndexed("RevokedTokenRepo.deleteExpired", () ->
+                revokedTokenRepo.deleteExpired(LocalDateTime.now()));
+    }
+
+    private void assertIndexed(String query, Runnable invocation) {
+        invocation.run();
+        entityManager.flush(); // derived deletes only reach the database on flush
+        entityManager.clear();
+
+        List<String> statements = RecordingStatementInspector.drain();
+        assertThat(statements).as("SQL issued by %s", query).isNotEmpty();
+
+        List<String> fullScans = new ArrayList<>();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            Matcher matcher = TABLE_ACCESS.matcher(plan.replace("\"", ""));
+            while (matcher.find()) {
+                String access = matcher.group(1);
+                // an index access without a condition walks the whole index, which is a full scan too
+                if (access.toLowerCase(Locale.ROOT).endsWith(".tablescan") || !access.contains(":")) {
+                    fullScans.add(access + "  <-  " + sql);
+                }
+            }
+        }
+        assertThat(fullScans).as("full scans in %s", query).isEmpty();
+    }
+
+    // parameters are bound as NULL, H2 builds the plan from the placeholders, not the values
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    ps.setNull(i, Types.NULL);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private Account account(String accountNumber) {
+        return Account.builder()
+                .accountNumber(accountNumber)
+                .balance(new BigDecimal("100.00"))
+                .accountType(AccountType.SAVINGS)
+                .currency(Currency.USD)
+                .accountStatus(AccountStatus.ACTIVE)
+                .user(user)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
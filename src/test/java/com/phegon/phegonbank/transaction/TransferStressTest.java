@@ -0,0 +1,334 @@
+package com.phegon.phegonbank.transaction;
+
+import com.phegon.phegonbank.account.entity.Account;
+import com.phegon.phegonbank.account.locking.AccountLockManager;
+import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.auth_users.entity.User;
+import com.phegon.phegonbank.auth_users.repo.UserRepo;
+import com.phegon.phegonbank.enums.AccountStatus;
+import com.phegon.phegonbank.enums.AccountType;
+import com.phegon.phegonbank.enums.Currency;
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.exceptions.ConcurrentUpdateException;
+import com.phegon.phegonbank.exceptions.InsufficientBalanceException;
+import com.phegon.phegonbank.notification.services.NotificationService;
+import com.phegon.phegonbank.transaction.concurrency.OptimisticRetryExecutor;
+import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
+import com.phegon.phegonbank.transaction.services.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Correctness baseline for the transfer path under contention. Runs stress.transfers random
+ * transfers from stress.threads threads among a few hot accounts (most of the traffic) and many
+ * cold ones, then checks that
+ * <ul>
+ *     <li>the total balance is unchanged,</li>
+ *     <li>no committed balance was ever negative (sampled while the run is going, and at the end),</li>
+ *     <li>every account's balance change is exactly explained by its TRANSFER rows, and there is
+ *     one row per successful call.</li>
+ * </ul>
+ * Throughput, the outcome of every call (insufficient balance, deadlock/lock timeout, ...) and the
+ * retry and lock counters are written to stress.output so a locking or batching change can be
+ * compared against it. Scale up or switch mode from the command line, e.g.
+ * mvn test -Dtest=TransferStressTest -Dstress.transfers=50000 -Dbank.transactions.concurrency-mode=OPTIMISTIC
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transferstress;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.mail.username=stress@phegonbank.local",
+        "spring.mail.password=",
+        "jwt.secret.string=stress-secret-stress-secret-stress-secret-0123456789",
+        "jwt.expiration=86400000",
+        "aws.accessKeyId=stress",
+        "aws.secretAccessKey=stress",
+        "aws.s3.bucketName=stress-bucket",
+        // the write-behind engine acknowledges before MySQL is written, balances would be checked too early
+        "bank.transactions.engine=DATABASE",
+        "logging.level.org.springframework.web=WARN",
+        "logging.level.org.springframework.security=WARN"
+})
+@Slf4j
+class TransferStressTest {
+
+    private static final BigDecimal HOT_OPENING_BALANCE = new BigDecimal("5000.00");
+    private static final BigDecimal COLD_OPENING_BALANCE = new BigDecimal("200.00");
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepo accountRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+    @Autowired
+    private AccountLockManager accountLockManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private Environment environment;
+
+    @Value("${stress.transfers:5000}")
+    private int transfers;
+    @Value("${stress.threads:16}")
+    private int threads;
+    @Value("${stress.hot-accounts:4}")
+    private int hotAccounts;
+    @Value("${stress.cold-accounts:200}")
+    private int coldAccounts;
+    @Value("${stress.hot-ratio:0.8}")
+    private double hotRatio;
+    @Value("${stress.output:target/transfer-stress-result.json}")
+    private String output;
+
+    @Test
+    void transfersConserveMoneyUnderContention() throws Exception {
+        List<String> hot = seedAccounts("5510", hotAccounts, HOT_OPENING_BALANCE);
+        List<String> cold = seedAccounts("5520", coldAccounts, COLD_OPENING_BALANCE);
+        Map<String, BigDecimal> opening = balances();
+        BigDecimal openingTotal = total(opening);
+
+        Map<String, Object> retriesBefore = optimisticRetryExecutor.snapshot();
+        Map<String, Object> locksBefore = accountLockManager.snapshot();
+
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        LongAdder transferredCents = new LongAdder();
+        AtomicInteger issued = new AtomicInteger();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<BigDecimal> lowestBalance = new AtomicReference<>(total(opening));
+        Thread sampler = Thread.ofPlatform().name("balance-sampler").start(() -> {
+            while (running.get()) {
+                BigDecimal min = jdbcTemplate.queryForObject("SELECT MIN(balance) FROM accounts", BigDecimal.class);
+                lowestBalance.accumulateAndGet(min, BigDecimal::min);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (issued.getAndIncrement() < transfers) {
+                    String source = pick(hot, cold, random);
+                    String destination;
+                    do {
+                        destination = pick(hot, cold, random);
+                    } while (destination.equals(source));
+                    long cents = random.nextLong(100, 10_001);
+
+                    TransactionRequest request = new TransactionRequest();
+                    request.setTransactionType(TransactionType.TRANSFER);
+                    request.setAccountNumber(source);
+                    request.setDestinationAccountNumber(destination);
+                    request.setAmount(BigDecimal.valueOf(cents, 2));
+                    request.setDescription("stress");
+
+                    String outcome;
+                    try {
+                        transactionService.createTransaction(request);
+                        transferredCents.add(cents);
+                        outcome = "SUCCESS";
+                    } catch (InsufficientBalanceException e) {
+                        outcome = "INSUFFICIENT_BALANCE";
+                    } catch (PessimisticLockingFailureException e) {
+                        outcome = "DEADLOCK_OR_LOCK_TIMEOUT";
+                    } catch (ConcurrentUpdateException e) {
+                        outcome = "CONCURRENT_UPDATE";
+                    } catch (ConcurrencyFailureException e) {
+                        outcome = "OPTIMISTIC_CONFLICT";
+                    } catch (RuntimeException e) {
+                        unexpected.add(e);
+                        outcome = "UNEXPECTED";
+                    }
+                    outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                }
+            });
+        }
+        workers.shutdown();
+        assertThat(workers.awaitTermination(10, TimeUnit.MINUTES)).as("stress run finished").isTrue();
+        long elapsedNanos = System.nanoTime() - start;
+        running.set(false);
+        sampler.join();
+
+        Map<String, BigDecimal> closing = balances();
+        long successes = count(outcomes, "SUCCESS");
+        writeReport(outcomes, successes, elapsedNanos, lowestBalance.get(),
+                retriesBefore, optimisticRetryExecutor.snapshot(), locksBefore, accountLockManager.snapshot());
+
+        assertThat(unexpected).as("unexpected failures").isEmpty();
+        assertThat(successes).as("successful transfers").isPositive();
+
+        assertThat(total(closing)).as("total balance").isEqualByComparingTo(openingTotal);
+        assertThat(lowestBalance.get()).as("lowest balance seen during the run").isGreaterThanOrEqualTo(BigDecimal.ZERO);
+        assertThat(closing.values()).as("closing balances").allSatisfy(balance ->
+                assertThat(balance).isGreaterThanOrEqualTo(BigDecimal.ZERO));
+
+        Long transferRows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE transaction_type = 'TRANSFER' AND transaction_status = 'SUCCESS'", Long.class);
+        BigDecimal transferRowAmount = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(amount), 0) FROM transactions WHERE transaction_type = 'TRANSFER' AND transaction_status = 'SUCCESS'",
+                BigDecimal.class);
+        assertThat(transferRows).as("TRANSFER rows").isEqualTo(successes);
+        assertThat(transferRowAmount).as("TRANSFER row amounts").isEqualByComparingTo(BigDecimal.valueOf(transferredCents.sum(), 2));
+
+        // replay the rows on top of the opening balances, every account must land on its closing balance
+        Map<String, BigDecimal> replayed = new HashMap<>(opening);
+        jdbcTemplate.query(
+                "SELECT source_account, destination_account, amount FROM transactions WHERE transaction_type = 'TRANSFER' AND transaction_status = 'SUCCESS'",
+                rs -> {
+                    BigDecimal amount = rs.getBigDecimal("amount");
+                    replayed.merge(rs.getString("source_account"), amount.negate(), BigDecimal::add);
+                    replayed.merge(rs.getString("destination_account"), amount, BigDecimal::add);
+                });
+        assertThat(replayed.keySet()).as("accounts touched by TRANSFER rows").isEqualTo(closing.keySet());
+        closing.forEach((accountNumber, balance) ->
+                assertThat(replayed.get(accountNumber)).as("balance of %s replayed from TRANSFER rows", accountNumber)
+                        .isEqualByComparingTo(balance));
+    }
+
+    private String pick(List<String> hot, List<String> cold, ThreadLocalRandom random) {
+        List<String> accounts = random.nextDouble() < hotRatio ? hot : cold;
+        return accounts.get(random.nextInt(accounts.size()));
+    }
+
+    private List<String> seedAccounts(String prefix, int count, BigDecimal openingBalance) {
+        User owner = userRepo.save(User.builder()
+                .firstName("Stress")
+                .lastName(prefix)
+                .email("stress." + prefix + "@phegonbank.local")
+                .password("unused")
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accounts.add(Account.builder()
+                    .accountNumber(prefix + String.format("%06d", i))
+                    .balance(openingBalance)
+                    .accountType(AccountType.SAVINGS)
+                    .currency(Currency.USD)
+                    .accountStatus(AccountStatus.ACTIVE)
+                    .user(owner)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        return accountRepo.saveAll(accounts).stream().map(Account::getAccountNumber).toList();
+    }
+
+    // balance slots count towards the balance when an account is sharded
+    private Map<String, BigDecimal> balances() {
+        Map<String, BigDecimal> balances = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT a.account_number, a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0) AS total"
+                        + " FROM accounts a",
+                rs -> {
+                    balances.put(rs.getString("account_number"), rs.getBigDecimal("total"));
+                });
+        return balances;
+    }
+
+    private static BigDecimal total(Map<String, BigDecimal> balances) {
+        return balances.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static long count(Map<String, LongAdder> outcomes, String outcome) {
+        LongAdder adder = outcomes.get(outcome);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    private void writeReport(Map<String, LongAdder> outcomes, long successes, long elapsedNanos, BigDecimal lowestBalance,
+                             Map<String, Object> retriesBefore, Map<String, Object> retriesAfter,
+                             Map<String, Object> locksBefore, Map<String, Object> locksAfter) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("concurrencyMode", environment.getProperty("bank.transactions.concurrency-mode"));
+        config.put("transfers", transfers);
+        config.put("threads", threads);
+        config.put("hotAccounts", hotAccounts);
+        config.put("coldAccounts", coldAccounts);
+        config.put("hotRatio", hotRatio);
+
+        Map<String, Long> outcomeCounts = new LinkedHashMap<>();
+        outcomes.forEach((outcome, adder) -> outcomeCounts.put(outcome, adder.sum()));
+
+        Map<String, Object> retries = new LinkedHashMap<>();
+        for (String key : List.of("operations", "conflicts", "retries", "aborts")) {
+            retries.put(key, delta(retriesBefore, retriesAfter, key));
+        }
+        Map<String, Object> locks = new LinkedHashMap<>();
+        for (String key : List.of("acquisitions", "contended", "totalWaitMicros")) {
+            locks.put(key, delta(locksBefore, locksAfter, key));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.put("attemptsPerSecond", Math.round(transfers / seconds));
+        report.put("successfulTransfersPerSecond", Math.round(successes / seconds));
+        report.put("outcomes", outcomeCounts);
+        report.put("deadlocksOrLockTimeouts", count(outcomes, "DEADLOCK_OR_LOCK_TIMEOUT"));
+        report.put("optimisticRetries", retries);
+        report.put("accountLocks", locks);
+        report.put("lowestBalanceSeen", lowestBalance);
+
+        File file = new File(output);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        log.info("Transfer stress: {} of {} transfers succeeded in {} ms, outcomes {}, report written to {}",
+                successes, transfers, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), outcomeCounts, file.getAbsolutePath());
+    }
+
+    private static long delta(Map<String, Object> before, Map<String, Object> after, String key) {
+        return ((Number) after.get(key)).longValue() - ((Number) before.getOrDefault(key, 0L)).longValue();
+    }
+}
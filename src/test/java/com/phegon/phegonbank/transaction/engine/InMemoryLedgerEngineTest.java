@@ -0,0 +1,206 @@
+package com.phegon.phegonbank.transaction.engine;
+
+import com.phegon.phegonbank.account.repo.AccountBalanceSlotRepo;
+import com.phegon.phegonbank.account.repo.AccountBalanceView;
+import com.phegon.phegonbank.account.repo.AccountRepo;
+import com.phegon.phegonbank.enums.TransactionType;
+import com.phegon.phegonbank.exceptions.ServiceBusyException;
+import com.phegon.phegonbank.transaction.dtos.TransactionRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The engine on a real log directory with the database mocked out. Covers group commit (a
+ * caller's future completes only once its record is on disk), recovery replaying exactly the
+ * records past the checkpoint, and a record refused by the database halting the persister and
+ * the engine instead of being dropped.
+ */
+class InMemoryLedgerEngineTest {
+
+    private static final String ACCOUNT = "1000000001";
+    private static final BigDecimal REFUSED_AMOUNT = new BigDecimal("13.00");
+
+    @TempDir
+    Path walDirectory;
+
+    private final AccountRepo accountRepo = mock(AccountRepo.class);
+    private final AccountBalanceSlotRepo slotRepo = mock(AccountBalanceSlotRepo.class);
+    private final EnginePersister persister = mock(EnginePersister.class);
+    private final List<Long> persisted = new CopyOnWriteArrayList<>();
+    private InMemoryLedgerEngine engine;
+
+    @BeforeEach
+    void database() {
+        AccountBalanceView account = mock(AccountBalanceView.class);
+        when(account.getId()).thenReturn(1L);
+        when(account.getAccountNumber()).thenReturn(ACCOUNT);
+        when(account.getBalance()).thenReturn(new BigDecimal("1000.00"));
+        when(accountRepo.findBalanceByAccountNumber(ACCOUNT)).thenReturn(Optional.of(account));
+        when(slotRepo.sumByAccountId(anyLong())).thenReturn(BigDecimal.ZERO);
+
+        // the engine reuses its batch list, so the sequences are copied out; a batch holding the
+        // refused amount fails as a whole, like a database transaction would
+        doAnswer(invocation -> {
+            List<WalRecord> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(record -> record.getAmount().compareTo(REFUSED_AMOUNT) == 0)) {
+                throw new DataIntegrityViolationException("refused");
+            }
+            batch.forEach(record -> persisted.add(record.getSequence()));
+            return null;
+        }).when(persister).persist(anyList());
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void callersAreAcknowledgedOnlyOnceTheirRecordsAreInTheLog() throws Exception {
+        start();
+
+        int deposits = 500;
+        List<CompletableFuture<Void>> acknowledged = new ArrayList<>(deposits);
+        for (int i = 0; i < deposits; i++) {
+            acknowledged.add(engine.submit(deposit("1.00")));
+        }
+        CompletableFuture.allOf(acknowledged.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        // read back through a second log instance while the engine is still running
+        List<Long> onDisk = readLog(0);
+        assertThat(onDisk).hasSize(deposits);
+        assertThat(onDisk).isSorted();
+
+        Map<String, Object> stats = engine.snapshot();
+        assertThat(stats.get("walRecords")).isEqualTo((long) deposits);
+        assertThat((long) stats.get("walBatches")).isBetween(1L, (long) deposits);
+        assertThat(stats.get("loggedSequence")).isEqualTo((long) deposits);
+
+        awaitUntil(() -> persisted.size() == deposits);
+        assertThat(persisted).isEqualTo(onDisk);
+    }
+
+    @Test
+    void recoveryReplaysOnlyRecordsPastTheCheckpoint() throws Exception {
+        writeLog(1, 5);
+        when(persister.checkpoint()).thenReturn(3L);
+
+        start();
+        assertThat(persisted).containsExactly(4L, 5L);
+        assertThat(engine.snapshot().get("persistedSequence")).isEqualTo(5L);
+
+        // new records continue the sequence after the replayed ones
+        engine.execute(deposit("1.00"));
+        awaitUntil(() -> persisted.contains(6L));
+        assertThat(persisted).containsExactly(4L, 5L, 6L);
+    }
+
+    @Test
+    void refusedRecordHaltsThePersisterAndKeepsTheCheckpointBeforeIt() throws Exception {
+        start();
+
+        engine.execute(deposit("1.00"));
+        engine.execute(deposit(REFUSED_AMOUNT.toPlainString())); // acknowledged: it is in the log
+        awaitUntil(() -> (long) engine.snapshot().get("persistHaltedAtSequence") == 2L);
+
+        Map<String, Object> stats = engine.snapshot();
+        assertThat(stats.get("accepting")).isEqualTo(false);
+        assertThat(stats.get("persistedSequence")).isEqualTo(1L);
+        assertThat(persisted).containsExactly(1L);
+        assertThatThrownBy(() -> engine.submit(deposit("1.00")))
+                .isInstanceOf(ServiceBusyException.class);
+
+        engine.shutdown();
+        engine = null;
+        assertThat(readLog(0)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void recordRefusedDuringRecoveryLeavesTheEngineHalted() throws Exception {
+        writeLog(1, 1);
+        writeLog(2, 2, REFUSED_AMOUNT);
+        writeLog(3, 3);
+
+        start();
+
+        Map<String, Object> stats = engine.snapshot();
+        assertThat(stats.get("accepting")).isEqualTo(false);
+        assertThat(stats.get("persistHaltedAtSequence")).isEqualTo(2L);
+        assertThat(stats.get("persistedSequence")).isEqualTo(1L);
+        assertThat(persisted).containsExactly(1L);
+        assertThatThrownBy(() -> engine.submit(deposit("1.00")))
+                .isInstanceOf(ServiceBusyException.class);
+        assertThat(readLog(0)).containsExactly(1L, 2L, 3L);
+    }
+
+    private void start() throws IOException {
+        engine = new InMemoryLedgerEngine(accountRepo, slotRepo, persister, 2, walDirectory.toString(),
+                64L << 20, 1000, 100, 10_000, 10_000);
+        engine.recover();
+    }
+
+    private static TransactionRequest deposit(String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionType(TransactionType.DEPOSIT);
+        request.setAccountNumber(ACCOUNT);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private void writeLog(long fromSequence, long toSequence) throws IOException {
+        writeLog(fromSequence, toSequence, new BigDecimal("1.00"));
+    }
+
+    private void writeLog(long fromSequence, long toSequence, BigDecimal amount) throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(walDirectory, 64L << 20)) {
+            wal.open(0, record -> { });
+            List<byte[]> payloads = new ArrayList<>();
+            for (long sequence = fromSequence; sequence <= toSequence; sequence++) {
+                payloads.add(WriteAheadLog.encode(new WalRecord(sequence, System.currentTimeMillis(),
+                        TransactionType.DEPOSIT, amount, ACCOUNT, null, null)));
+            }
+            wal.append(payloads, fromSequence);
+        }
+    }
+
+    private List<Long> readLog(long afterSequence) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (WriteAheadLog wal = new WriteAheadLog(walDirectory, 64L << 20)) {
+            wal.open(afterSequence, record -> sequences.add(record.getSequence()));
+        }
+        return sequences;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 10 seconds").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
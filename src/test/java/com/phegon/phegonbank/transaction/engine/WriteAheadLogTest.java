@@ -0,0 +1,188 @@
+package com.phegon.phegonbank.transaction.engine;
+
+import com.phegon.phegonbank.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The log on disk: records survive a reopen byte for byte, a torn or corrupt tail is cut off
+ * while corruption in an older segment is refused, replay starts after the checkpoint, and
+ * deleteUpTo only removes segments that lie entirely behind the checkpoint.
+ */
+class WriteAheadLogTest {
+
+    private static final long LARGE_SEGMENT = 1 << 20;
+    private static final long SEGMENT_PER_APPEND = 1; // every append after the first starts a new segment
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsSurviveReopen() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, LARGE_SEGMENT)) {
+            assertThat(wal.open(0, record -> { })).isZero();
+            append(wal, 1, 4);
+        }
+
+        List<WalRecord> replayed = new ArrayList<>();
+        assertThat(reopen(0, replayed)).isEqualTo(4);
+        assertThat(replayed)
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(record(1), record(2), record(3), record(4));
+    }
+
+    @Test
+    void tornTailIsCutOffAndAppendingContinues() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, LARGE_SEGMENT)) {
+            wal.open(0, record -> { });
+            append(wal, 1, 3);
+        }
+        Path segment = onlySegment();
+        long intactBytes = Files.size(segment);
+
+        // a crash halfway through the next write: the header made it, half the payload did not
+        byte[] payload = WriteAheadLog.encode(record(4));
+        ByteBuffer torn = ByteBuffer.allocate(8 + payload.length / 2)
+                .putInt(payload.length)
+                .putInt(0)
+                .put(payload, 0, payload.length / 2);
+        Files.write(segment, torn.array(), StandardOpenOption.APPEND);
+
+        List<WalRecord> replayed = new ArrayList<>();
+        try (WriteAheadLog wal = new WriteAheadLog(directory, LARGE_SEGMENT)) {
+            assertThat(wal.open(0, replayed::add)).isEqualTo(3);
+            assertThat(Files.size(segment)).isEqualTo(intactBytes);
+            append(wal, 4, 4);
+        }
+        assertThat(replayed).extracting(WalRecord::getSequence).containsExactly(1L, 2L, 3L);
+
+        replayed.clear();
+        assertThat(reopen(0, replayed)).isEqualTo(4);
+        assertThat(replayed).extracting(WalRecord::getSequence).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void checksumMismatchInTheLastRecordIsCutOff() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, LARGE_SEGMENT)) {
+            wal.open(0, record -> { });
+            append(wal, 1, 3);
+        }
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x7f;
+        Files.write(segment, bytes);
+
+        List<WalRecord> replayed = new ArrayList<>();
+        assertThat(reopen(0, replayed)).isEqualTo(2);
+        assertThat(replayed).extracting(WalRecord::getSequence).containsExactly(1L, 2L);
+        assertThat(Files.size(segment)).isLessThan(bytes.length);
+    }
+
+    @Test
+    void corruptionBeforeTheLastSegmentIsAnError() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_PER_APPEND)) {
+            wal.open(0, record -> { });
+            append(wal, 1, 2);
+            append(wal, 3, 4);
+        }
+        Path first = segments().get(0);
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[bytes.length - 1] ^= 0x7f;
+        Files.write(first, bytes);
+
+        try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_PER_APPEND)) {
+            assertThatThrownBy(() -> wal.open(0, record -> { }))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("corrupt");
+        }
+    }
+
+    @Test
+    void replayStartsAfterTheCheckpoint() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_PER_APPEND)) {
+            wal.open(0, record -> { });
+            append(wal, 1, 2);
+            append(wal, 3, 5);
+        }
+
+        List<WalRecord> replayed = new ArrayList<>();
+        assertThat(reopen(3, replayed)).isEqualTo(5);
+        assertThat(replayed).extracting(WalRecord::getSequence).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void deleteUpToKeepsSegmentsPastTheCheckpointAndTheActiveOne() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, SEGMENT_PER_APPEND)) {
+            wal.open(0, record -> { });
+            append(wal, 1, 2);
+            append(wal, 3, 4);
+            append(wal, 5, 6);
+            assertThat(wal.segmentCount()).isEqualTo(3);
+
+            // 3..4 still holds record 4, which is not persisted yet
+            wal.deleteUpTo(3);
+            assertThat(wal.segmentCount()).isEqualTo(2);
+            assertThat(segments()).extracting(file -> file.getFileName().toString())
+                    .containsExactly("wal-00000000000000000003.log", "wal-00000000000000000005.log");
+
+            // everything is persisted, but the active segment stays for the next append
+            wal.deleteUpTo(6);
+            assertThat(wal.segmentCount()).isEqualTo(1);
+            append(wal, 7, 7);
+        }
+
+        List<WalRecord> replayed = new ArrayList<>();
+        assertThat(reopen(6, replayed)).isEqualTo(7);
+        assertThat(replayed).extracting(WalRecord::getSequence).containsExactly(7L);
+    }
+
+    private long reopen(long afterSequence, List<WalRecord> replayed) throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, LARGE_SEGMENT)) {
+            return wal.open(afterSequence, replayed::add);
+        }
+    }
+
+    private static void append(WriteAheadLog wal, long fromSequence, long toSequence) throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        for (long sequence = fromSequence; sequence <= toSequence; sequence++) {
+            payloads.add(WriteAheadLog.encode(record(sequence)));
+        }
+        wal.append(payloads, fromSequence);
+    }
+
+    // even sequences are transfers with a non-ASCII description, odd ones deposits without the optional fields
+    static WalRecord record(long sequence) {
+        boolean transfer = sequence % 2 == 0;
+        return new WalRecord(sequence, 1_700_000_000_000L + sequence,
+                transfer ? TransactionType.TRANSFER : TransactionType.DEPOSIT,
+                new BigDecimal("12.34").add(BigDecimal.valueOf(sequence)),
+                "1000000001",
+                transfer ? "1000000002" : null,
+                transfer ? "rent for März #" + sequence : null);
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}